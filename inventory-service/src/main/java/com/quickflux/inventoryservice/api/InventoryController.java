@@ -1,10 +1,32 @@
 package com.quickflux.inventoryservice.api;
 
+import com.quickflux.inventoryservice.service.BatchReservationLine;
+import com.quickflux.inventoryservice.service.BatchReservationResult;
 import com.quickflux.inventoryservice.service.InventoryService;
+import com.quickflux.inventoryservice.service.ProductAvailability;
+import com.quickflux.inventoryservice.service.ProductAvailabilityCache;
+import com.quickflux.inventoryservice.service.ProductImportJob;
+import com.quickflux.inventoryservice.service.ProductImportService;
+import com.quickflux.inventoryservice.service.ProductStockView;
+import com.quickflux.inventoryservice.service.ReservationLine;
+import com.quickflux.inventoryservice.service.ShardedStockService;
+import com.quickflux.inventoryservice.service.SoldOutException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @Slf4j
@@ -14,6 +36,11 @@ import java.util.UUID;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final ShardedStockService shardedStockService;
+    private final ProductAvailabilityCache availabilityCache;
+    private final ProductImportService productImportService;
+
+    private static final String NDJSON = "application/x-ndjson";
 
     @PostMapping("/reserve")
     public ResponseEntity<ReserveStockResponse> reserveStock(
@@ -29,6 +56,25 @@ public class InventoryController {
         return ResponseEntity.ok(new ReserveStockResponse(reservationId));
     }
 
+    @PostMapping("/reservations")
+    public ResponseEntity<ReserveLinesResponse> reserveLines(@Valid @RequestBody ReserveLinesRequest request) {
+        log.info("Received reserve stock request for order {} with {} line(s)",
+                request.orderId(), request.lines().size());
+
+        List<UUID> reservationIds = inventoryService.reserveStock(request.orderId(), request.lines());
+
+        return ResponseEntity.ok(new ReserveLinesResponse(reservationIds));
+    }
+
+    @PostMapping("/reserve/batch")
+    public ResponseEntity<BatchReserveResponse> reserveBatch(@Valid @RequestBody BatchReserveRequest request) {
+        log.info("Received batch reserve request with {} line(s)", request.lines().size());
+
+        List<BatchReservationResult> results = inventoryService.reserveBatch(request.lines());
+
+        return ResponseEntity.ok(new BatchReserveResponse(results));
+    }
+
     @PostMapping("/release")
     public ResponseEntity<Void> releaseStock(@RequestParam UUID orderId) {
         log.info("Received release stock request for order {}", orderId);
@@ -36,5 +82,112 @@ public class InventoryController {
         return ResponseEntity.ok().build();
     }
 
+    // Browse reads: served from the near-cache, never from a reservation attempt
+    @GetMapping("/products/{productId}/availability")
+    public ResponseEntity<ProductAvailability> getAvailability(@PathVariable UUID productId) {
+        return ResponseEntity.of(availabilityCache.get(productId));
+    }
+
+    @PostMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> getAvailability(@Valid @RequestBody AvailabilityRequest request) {
+        return ResponseEntity.ok(new AvailabilityResponse(availabilityCache.getAll(request.productIds())));
+    }
+
+    @GetMapping("/products/{productId}/stock")
+    public ResponseEntity<ProductStockView> getStock(@PathVariable UUID productId) {
+        return ResponseEntity.ok(shardedStockService.getStock(productId));
+    }
+
+    @PostMapping("/products/{productId}/shards")
+    public ResponseEntity<ProductStockView> enableSharding(@PathVariable UUID productId, @RequestParam int count) {
+        log.info("Received request to shard product {} into {} shards", productId, count);
+        return ResponseEntity.ok(shardedStockService.enable(productId, count));
+    }
+
+    @PostMapping("/products/{productId}/shards/rebalance")
+    public ResponseEntity<ProductStockView> rebalanceShards(@PathVariable UUID productId) {
+        log.info("Received request to rebalance shards of product {}", productId);
+        return ResponseEntity.ok(shardedStockService.rebalance(productId));
+    }
+
+    @DeleteMapping("/products/{productId}/shards")
+    public ResponseEntity<ProductStockView> disableSharding(@PathVariable UUID productId) {
+        log.info("Received request to fold shards of product {}", productId);
+        return ResponseEntity.ok(shardedStockService.disable(productId));
+    }
+
+    /**
+     * Streams a supplier feed (text/csv or application/x-ndjson) into the catalog.
+     * mode=add restocks on top of current stock, mode=set replaces it. Answers 202 once the feed
+     * is staged; poll the Location for merge progress.
+     */
+    @PostMapping(value = "/imports", consumes = {"text/csv", NDJSON})
+    public ResponseEntity<ProductImportJob.Progress> startImport(
+            @RequestParam(defaultValue = "add") String mode,
+            HttpServletRequest request) throws IOException {
+
+        ProductImportJob.Mode importMode;
+        try {
+            importMode = ProductImportJob.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "mode must be add or set");
+        }
+        ProductImportJob.Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.valueOf(NDJSON))
+                ? ProductImportJob.Format.NDJSON
+                : ProductImportJob.Format.CSV;
+
+        log.info("Received {} product import ({})", format, importMode);
+
+        ProductImportJob.Progress progress = productImportService.start(request.getInputStream(), format, importMode);
+        if (progress.status() == ProductImportJob.Status.FAILED) {
+            return ResponseEntity.badRequest().body(progress);
+        }
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/inventory/imports/" + progress.importId()))
+                .body(progress);
+    }
+
+    @GetMapping("/imports/{importId}")
+    public ResponseEntity<ProductImportJob.Progress> getImport(@PathVariable UUID importId) {
+        return ResponseEntity.of(productImportService.getProgress(importId));
+    }
+
+    /**
+     * Continues a failed import from the last merged chunk. Re-posting the feed instead would
+     * apply the chunks that did merge a second time.
+     */
+    @PostMapping("/imports/{importId}/resume")
+    public ResponseEntity<ProductImportJob.Progress> resumeImport(@PathVariable UUID importId) {
+        log.info("Received resume request for import {}", importId);
+        return ResponseEntity.of(productImportService.resume(importId));
+    }
+
+    // Sold-out rejections never reached the database; answer without logging or a stack trace
+    @ExceptionHandler(SoldOutException.class)
+    public ResponseEntity<String> soldOut(SoldOutException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
     public record ReserveStockResponse(UUID reservationId) {}
+
+    public record ReserveLinesRequest(
+            @NotNull UUID orderId,
+            @NotEmpty @Size(max = 100) List<@Valid ReservationLine> lines
+    ) {}
+
+    public record ReserveLinesResponse(List<UUID> reservationIds) {}
+
+    public record BatchReserveRequest(
+            @NotEmpty @Size(max = 20000) List<@Valid BatchReservationLine> lines
+    ) {}
+
+    public record AvailabilityRequest(
+            @NotEmpty @Size(max = 1000) List<@NotNull UUID> productIds
+    ) {}
+
+    // Unknown products are left out
+    public record AvailabilityResponse(List<ProductAvailability> products) {}
+
+    public record BatchReserveResponse(List<BatchReservationResult> results) {}
 }
\ No newline at end of file
@@ -4,4 +4,8 @@ public class InsufficientStockException extends RuntimeException {
     public InsufficientStockException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+
+    protected InsufficientStockException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+}
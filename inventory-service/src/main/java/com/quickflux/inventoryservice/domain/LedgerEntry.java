@@ -0,0 +1,55 @@
+package com.quickflux.inventoryservice.domain;
+
+import java.util.UUID;
+
+/**
+ * One stock ledger operation as written to the write-ahead log.
+ * RESERVE carries the full reservation; CONFIRM, RELEASE and EXPIRE transition an existing one
+ * and keep its product and quantity so stock can be given back without a lookup.
+ */
+public record LedgerEntry(
+        Type type,
+        UUID reservationId,
+        UUID orderId,
+        UUID productId,
+        int quantity,
+        long createdAtMillis,
+        long expiresAtMillis
+) {
+
+    public enum Type {
+        RESERVE,
+        CONFIRM,
+        RELEASE,
+        EXPIRE
+    }
+
+    public LedgerEntry as(Type newType) {
+        return new LedgerEntry(newType, reservationId, orderId, productId, quantity, createdAtMillis, expiresAtMillis);
+    }
+
+    // Returns stock to the product once durable
+    public boolean restoresStock() {
+        return type == Type.RELEASE || type == Type.EXPIRE;
+    }
+
+    public String toLine() {
+        return type + "," + reservationId + "," + orderId + "," + productId + "," + quantity + ","
+                + createdAtMillis + "," + expiresAtMillis;
+    }
+
+    public static LedgerEntry parse(String line) {
+        String[] fields = line.split(",");
+        if (fields.length != 7) {
+            throw new IllegalArgumentException("Malformed ledger entry: " + line);
+        }
+        return new LedgerEntry(
+                Type.valueOf(fields[0]),
+                UUID.fromString(fields[1]),
+                UUID.fromString(fields[2]),
+                UUID.fromString(fields[3]),
+                Integer.parseInt(fields[4]),
+                Long.parseLong(fields[5]),
+                Long.parseLong(fields[6]));
+    }
+}
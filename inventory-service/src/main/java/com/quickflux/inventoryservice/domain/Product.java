@@ -23,9 +23,14 @@ public class Product {
     @Column(nullable = false, unique = true, length = 50)
     private String sku;
 
+    // With sharded stock this is only the unsharded remainder
     @Column(nullable = false)
     private Integer stockLevel;
 
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean sharded = false;
+
     @Version
     private Long version;
 
@@ -0,0 +1,4 @@
+package com.quickflux.inventoryservice.domain;
+
+// One parsed feed line
+public record ProductImportRow(String sku, String name, int quantity) {}
@@ -0,0 +1,41 @@
+package com.quickflux.inventoryservice.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "product_stock_shards")
+@IdClass(ProductStockShard.Key.class)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductStockShard {
+
+    @Id
+    @Column(columnDefinition = "uuid")
+    private UUID productId;
+
+    @Id
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Integer stockLevel;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID productId;
+        private Integer shard;
+    }
+}
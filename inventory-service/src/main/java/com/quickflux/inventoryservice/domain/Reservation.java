@@ -39,6 +39,9 @@ public class Reservation {
 
     private Instant confirmedAt;
 
+    // Set when the stock came from a product_stock_shards row
+    private Integer stockShard;
+
     @Version
     private Long version;
 
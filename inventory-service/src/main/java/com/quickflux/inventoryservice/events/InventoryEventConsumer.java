@@ -7,7 +7,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import com.quickflux.contracts.events.*;
 
 @Slf4j
@@ -105,21 +112,41 @@ public class InventoryEventConsumer {
         idempotencyService.markAsProcessed(event.eventId(), event.eventType());
     }
 
-    @KafkaListener(topics = "payment.failed", groupId = "inventory-service")
-    public void handlePaymentFailed(PaymentFailedV1 event) {
+    /**
+     * Compensation arrives in bursts when the payment gateway fails, so payment.failed is consumed
+     * a poll at a time: every order in the batch is released with one set-based statement.
+     */
+    @KafkaListener(topics = "payment.failed", groupId = "inventory-service",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void handlePaymentFailed(List<PaymentFailedV1> events) {
+        // Records that failed to deserialize arrive as null
+        Map<UUID, PaymentFailedV1> byEventId = new LinkedHashMap<>();
+        events.stream()
+                .filter(Objects::nonNull)
+                .forEach(event -> byEventId.putIfAbsent(event.eventId(), event));
+
         // Check idempotency
-        if (idempotencyService.isAlreadyProcessed(event.eventId())) {
-            log.info("Event {} already processed, skipping", event.eventId());
+        Set<UUID> processed = idempotencyService.findProcessed(byEventId.keySet());
+        processed.forEach(eventId -> log.info("Event {} already processed, skipping", eventId));
+        byEventId.keySet().removeAll(processed);
+
+        if (byEventId.isEmpty()) {
             return;
         }
 
-        log.info("Received PaymentFailed event for order {}: {}",
-                event.orderId(), event.reason());
+        log.info("Received {} PaymentFailed event(s)", byEventId.size());
+        byEventId.values().forEach(event ->
+                log.debug("PaymentFailed for order {}: {}", event.orderId(), event.reason()));
 
-        // Compensation: Release the reservation and restore stock
-        inventoryService.releaseReservation(event.orderId());
+        // Compensation: Release the reservations and restore stock
+        Set<UUID> orderIds = byEventId.values().stream()
+                .map(PaymentFailedV1::orderId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        inventoryService.releaseReservations(orderIds);
 
         // Mark as processed
-        idempotencyService.markAsProcessed(event.eventId(), event.eventType());
+        Map<UUID, String> eventTypes = new LinkedHashMap<>();
+        byEventId.values().forEach(event -> eventTypes.put(event.eventId(), event.eventType()));
+        idempotencyService.markAllAsProcessed(eventTypes);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.quickflux.inventoryservice.events;
+
+import com.quickflux.contracts.events.StockLevelV1;
+import com.quickflux.inventoryservice.service.SoldOutFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds stock.levels from every instance into this instance's sold-out filter.
+ * Partitions are assigned, not subscribed, so every instance reads all of them from the start of
+ * the compacted topic on each startup without joining a group. The group id only names the
+ * offsets the container commits, which are never read back.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLevelConsumer {
+
+    private final SoldOutFilter soldOutFilter;
+
+    // Partitions as created by KafkaConfig.stockLevelsTopic
+    @KafkaListener(groupId = "inventory-service-sold-out",
+            topicPartitions = @TopicPartition(topic = StockLevelPublisher.TOPIC, partitions = "0-2",
+                    partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")))
+    public void handleStockLevel(ConsumerRecord<String, StockLevelV1> record) {
+        // Tombstones and records that failed to deserialize carry no level
+        if (record.value() == null) {
+            return;
+        }
+        soldOutFilter.apply(record.value());
+    }
+}
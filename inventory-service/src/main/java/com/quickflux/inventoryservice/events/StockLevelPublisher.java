@@ -0,0 +1,129 @@
+package com.quickflux.inventoryservice.events;
+
+import com.quickflux.contracts.events.StockLevelV1;
+import com.quickflux.inventoryservice.repository.ProductRepository;
+import com.quickflux.inventoryservice.service.StockChangedEvent;
+import com.quickflux.inventoryservice.service.StockLedger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes the available stock of changed products to the compacted stock.levels topic.
+ * Committed changes only mark a product dirty; every coalesce window the dirty set is drained,
+ * read once and published, so a burst of reservations on one product becomes one message per
+ * window. Messages carry the level itself, not a delta, so losing or repeating one is harmless.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLevelPublisher {
+
+    public static final String TOPIC = "stock.levels";
+
+    private static final int READ_CHUNK = 1000;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ProductRepository productRepository;
+    private final Optional<StockLedger> stockLedger;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    private Counter changes;
+    private Counter published;
+
+    @PostConstruct
+    void registerMetrics() {
+        changes = Counter.builder("inventory.stock_levels.changes")
+                .description("Committed stock changes, before coalescing")
+                .register(meterRegistry);
+        published = Counter.builder("inventory.stock_levels.published")
+                .description("Stock level messages sent to " + TOPIC)
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        changes.increment(event.productIds().size());
+        dirty.addAll(event.productIds());
+    }
+
+    @Scheduled(fixedDelayString = "${quickflux.inventory.stock-levels.coalesce-window-ms:200}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<UUID> productIds = new ArrayList<>();
+        for (Iterator<UUID> it = dirty.iterator(); it.hasNext(); ) {
+            productIds.add(it.next());
+            it.remove();
+        }
+
+        // Taken before reading, so a newer message always carries a newer asOf
+        Instant asOf = Instant.now();
+        try {
+            readLevels(productIds).forEach((productId, available) -> send(productId, available, asOf));
+        } catch (Exception e) {
+            log.error("Failed to read stock levels of {} product(s), retrying next window: {}", productIds.size(), e.getMessage());
+            dirty.addAll(productIds);
+        }
+    }
+
+    private Map<UUID, Integer> readLevels(List<UUID> productIds) {
+        Map<UUID, Integer> levels = new HashMap<>();
+        if (stockLedger.isPresent()) {
+            productIds.forEach(productId -> stockLedger.get().available(productId)
+                    .ifPresent(available -> levels.put(productId, available)));
+            return levels;
+        }
+
+        for (int from = 0; from < productIds.size(); from += READ_CHUNK) {
+            productRepository.findStockLevels(productIds.subList(from, Math.min(from + READ_CHUNK, productIds.size())))
+                    .forEach(level -> levels.put(level.getProductId(), level.getAvailable()));
+        }
+        return levels;
+    }
+
+    private void send(UUID productId, int available, Instant asOf) {
+        StockLevelV1 level = new StockLevelV1(
+                UUID.randomUUID(),
+                "StockLevel",
+                "v1",
+                null,
+                Instant.now(),
+                "inventory-service",
+                productId,
+                available,
+                asOf
+        );
+
+        kafkaTemplate.send(TOPIC, productId.toString(), level)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to publish stock level of product {}: {}", productId, ex.getMessage());
+                        dirty.add(productId);
+                    } else {
+                        published.increment();
+                    }
+                });
+    }
+}
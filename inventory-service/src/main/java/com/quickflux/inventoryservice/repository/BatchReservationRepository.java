@@ -0,0 +1,138 @@
+package com.quickflux.inventoryservice.repository;
+
+import com.quickflux.inventoryservice.domain.Reservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Set-based JDBC writes for reservations: one stock update per product however many orders
+ * touch it, reservation inserts sent as one JDBC batch, and release/confirm by order id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BatchReservationRepository {
+
+    // Locks in id order, the same order single-order reservations use
+    private static final String LOCK_STOCK = """
+            SELECT id, stock_level, sharded FROM products
+            WHERE id = ANY(?::uuid[])
+            ORDER BY id
+            FOR UPDATE
+            """;
+
+    private static final String DECREMENT_STOCK = """
+            UPDATE products
+            SET stock_level = stock_level - ?, version = version + 1, updated_at = ?
+            WHERE id = ?
+            """;
+
+    private static final String INSERT_RESERVATION = """
+            INSERT INTO reservations (id, order_id, product_id, quantity, status, created_at, expires_at, version)
+            VALUES (?, ?, ?, ?, 'RESERVED', ?, ?, 0)
+            """;
+
+    /*
+     * Releases every RESERVED reservation of the given orders and returns the stock in the same
+     * statement: to the shard it came from, else (unsharded, or the shards were folded back since)
+     * to the product row. Returns the products whose stock was restored.
+     */
+    private static final String RELEASE_ORDERS = """
+            WITH released AS (
+                UPDATE reservations
+                SET status = 'RELEASED', version = version + 1
+                WHERE order_id = ANY(?::uuid[]) AND status = 'RESERVED'
+                RETURNING product_id, stock_shard, quantity
+            ), to_shards AS (
+                UPDATE product_stock_shards s
+                SET stock_level = s.stock_level + d.quantity, version = s.version + 1, updated_at = ?
+                FROM (SELECT product_id, stock_shard, SUM(quantity) AS quantity
+                      FROM released WHERE stock_shard IS NOT NULL
+                      GROUP BY product_id, stock_shard) d
+                WHERE s.product_id = d.product_id AND s.shard = d.stock_shard
+                RETURNING s.product_id, s.shard
+            ), to_products AS (
+                UPDATE products p
+                SET stock_level = p.stock_level + d.quantity, version = p.version + 1, updated_at = ?
+                FROM (SELECT r.product_id, SUM(r.quantity) AS quantity
+                      FROM released r
+                      WHERE NOT EXISTS (SELECT 1 FROM to_shards t
+                                        WHERE t.product_id = r.product_id AND t.shard = r.stock_shard)
+                      GROUP BY r.product_id) d
+                WHERE p.id = d.product_id
+                RETURNING p.id
+            )
+            SELECT DISTINCT product_id FROM released
+            """;
+
+    private static final String CONFIRM_ORDERS = """
+            UPDATE reservations
+            SET status = 'CONFIRMED', confirmed_at = ?, version = version + 1
+            WHERE order_id = ANY(?::uuid[]) AND status = 'RESERVED'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record StockRow(int stockLevel, boolean sharded) {}
+
+    public Map<UUID, StockRow> lockStock(Collection<UUID> productIds) {
+        Map<UUID, StockRow> stock = new HashMap<>();
+        jdbcTemplate.query(LOCK_STOCK,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", productIds.toArray())),
+                rs -> {
+                    stock.put(rs.getObject("id", UUID.class), new StockRow(rs.getInt("stock_level"), rs.getBoolean("sharded")));
+                });
+        return stock;
+    }
+
+    // Caller must hold the row locks from lockStock, so the levels cannot go negative
+    public void decrementStock(Map<UUID, Integer> quantityByProduct, Instant now) {
+        List<Object[]> args = new ArrayList<>();
+        quantityByProduct.forEach((productId, quantity) -> args.add(new Object[]{quantity, toUtc(now), productId}));
+        jdbcTemplate.batchUpdate(DECREMENT_STOCK, args);
+    }
+
+    public void insertReservations(List<Reservation> reservations) {
+        jdbcTemplate.batchUpdate(INSERT_RESERVATION, reservations.stream()
+                .map(reservation -> new Object[]{
+                        reservation.getId(),
+                        reservation.getOrderId(),
+                        reservation.getProductId(),
+                        reservation.getQuantity(),
+                        toUtc(reservation.getCreatedAt()),
+                        toUtc(reservation.getExpiresAt())})
+                .toList());
+    }
+
+    public List<UUID> releaseOrders(Collection<UUID> orderIds, Instant now) {
+        LocalDateTime updatedAt = toUtc(now);
+        return jdbcTemplate.query(RELEASE_ORDERS,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("uuid", orderIds.toArray()));
+                    ps.setObject(2, updatedAt);
+                    ps.setObject(3, updatedAt);
+                },
+                (rs, rowNum) -> rs.getObject("product_id", UUID.class));
+    }
+
+    public int confirmOrders(Collection<UUID> orderIds, Instant now) {
+        return jdbcTemplate.update(CONFIRM_ORDERS, ps -> {
+            ps.setObject(1, toUtc(now));
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", orderIds.toArray()));
+        });
+    }
+
+    // Timestamps hold UTC wall-clock time
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
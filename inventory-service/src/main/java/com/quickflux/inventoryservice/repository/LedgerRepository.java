@@ -0,0 +1,162 @@
+package com.quickflux.inventoryservice.repository;
+
+import com.quickflux.inventoryservice.domain.LedgerEntry;
+import com.quickflux.inventoryservice.domain.ReservationStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Set-based writes for the stock ledger's group commit. Every statement is idempotent: stock only
+ * moves for reservations this statement actually inserted or transitioned, so replaying a WAL
+ * batch that already reached the database changes nothing.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerRepository {
+
+    private static final String INSERT_RESERVATIONS = """
+            WITH inserted AS (
+                INSERT INTO reservations (id, order_id, product_id, quantity, status, created_at, expires_at, version)
+                SELECT r.id, r.order_id, r.product_id, r.quantity, 'RESERVED',
+                       to_timestamp(r.created_at / 1000.0) AT TIME ZONE 'UTC',
+                       to_timestamp(r.expires_at / 1000.0) AT TIME ZONE 'UTC', 0
+                FROM unnest(?::uuid[], ?::uuid[], ?::uuid[], ?::int[], ?::bigint[], ?::bigint[])
+                     AS r(id, order_id, product_id, quantity, created_at, expires_at)
+                ON CONFLICT (id) DO NOTHING
+                RETURNING product_id, quantity
+            ), delta AS (
+                SELECT product_id, SUM(quantity) AS quantity FROM inserted GROUP BY product_id
+            )
+            UPDATE products p
+            SET stock_level = p.stock_level - d.quantity, version = p.version + 1,
+                updated_at = NOW() AT TIME ZONE 'UTC'
+            FROM delta d
+            WHERE p.id = d.product_id
+            """;
+
+    private static final String RESTORE_RESERVATIONS = """
+            WITH restored AS (
+                UPDATE reservations
+                SET status = ?, version = version + 1
+                WHERE id = ANY(?::uuid[]) AND status = 'RESERVED'
+                RETURNING product_id, quantity
+            ), delta AS (
+                SELECT product_id, SUM(quantity) AS quantity FROM restored GROUP BY product_id
+            )
+            UPDATE products p
+            SET stock_level = p.stock_level + d.quantity, version = p.version + 1,
+                updated_at = NOW() AT TIME ZONE 'UTC'
+            FROM delta d
+            WHERE p.id = d.product_id
+            """;
+
+    private static final String CONFIRM_RESERVATIONS = """
+            UPDATE reservations
+            SET status = 'CONFIRMED', confirmed_at = NOW() AT TIME ZONE 'UTC', version = version + 1
+            WHERE id = ANY(?::uuid[]) AND status = 'RESERVED'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies a batch in order of kind: new reservations first, then transitions.
+     * A reservation is never both confirmed and released, so this matches the ledger's order.
+     */
+    public void apply(List<LedgerEntry> entries) {
+        List<LedgerEntry> reserves = ofType(entries, LedgerEntry.Type.RESERVE);
+        if (!reserves.isEmpty()) {
+            jdbcTemplate.update(INSERT_RESERVATIONS, ps -> {
+                Connection connection = ps.getConnection();
+                ps.setArray(1, uuidArray(connection, reserves.stream().map(LedgerEntry::reservationId).toList()));
+                ps.setArray(2, uuidArray(connection, reserves.stream().map(LedgerEntry::orderId).toList()));
+                ps.setArray(3, uuidArray(connection, reserves.stream().map(LedgerEntry::productId).toList()));
+                ps.setArray(4, connection.createArrayOf("int4", reserves.stream().map(LedgerEntry::quantity).toArray()));
+                ps.setArray(5, connection.createArrayOf("int8", reserves.stream().map(LedgerEntry::createdAtMillis).toArray()));
+                ps.setArray(6, connection.createArrayOf("int8", reserves.stream().map(LedgerEntry::expiresAtMillis).toArray()));
+            });
+        }
+
+        List<LedgerEntry> confirms = ofType(entries, LedgerEntry.Type.CONFIRM);
+        if (!confirms.isEmpty()) {
+            jdbcTemplate.update(CONFIRM_RESERVATIONS, ps ->
+                    ps.setArray(1, uuidArray(ps.getConnection(), reservationIds(confirms))));
+        }
+
+        restore(ofType(entries, LedgerEntry.Type.RELEASE), ReservationStatus.RELEASED);
+        restore(ofType(entries, LedgerEntry.Type.EXPIRE), ReservationStatus.EXPIRED);
+    }
+
+    public Map<UUID, Integer> loadStockLevels() {
+        Map<UUID, Integer> levels = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock_level FROM products",
+                rs -> {
+                    levels.put(rs.getObject("id", UUID.class), rs.getInt("stock_level"));
+                });
+        return levels;
+    }
+
+    public int countShardedProducts() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM products WHERE sharded", Integer.class);
+    }
+
+    public Optional<Integer> findStockLevel(UUID productId) {
+        return jdbcTemplate.query("SELECT stock_level FROM products WHERE id = ?",
+                (rs, rowNum) -> rs.getInt("stock_level"), productId).stream().findFirst();
+    }
+
+    public List<ReservationStatus> findReservationStatuses(UUID orderId) {
+        return jdbcTemplate.query("SELECT DISTINCT status FROM reservations WHERE order_id = ?",
+                (rs, rowNum) -> ReservationStatus.valueOf(rs.getString("status")), orderId);
+    }
+
+    public List<LedgerEntry> loadOpenReservations() {
+        return jdbcTemplate.query(
+                "SELECT id, order_id, product_id, quantity, created_at, expires_at FROM reservations WHERE status = 'RESERVED'",
+                (rs, rowNum) -> new LedgerEntry(
+                        LedgerEntry.Type.RESERVE,
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("order_id", UUID.class),
+                        rs.getObject("product_id", UUID.class),
+                        rs.getInt("quantity"),
+                        toMillis(rs.getObject("created_at", LocalDateTime.class)),
+                        toMillis(rs.getObject("expires_at", LocalDateTime.class))));
+    }
+
+    private void restore(List<LedgerEntry> entries, ReservationStatus status) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(RESTORE_RESERVATIONS, ps -> {
+            ps.setString(1, status.name());
+            ps.setArray(2, uuidArray(ps.getConnection(), reservationIds(entries)));
+        });
+    }
+
+    private static List<LedgerEntry> ofType(List<LedgerEntry> entries, LedgerEntry.Type type) {
+        return entries.stream().filter(entry -> entry.type() == type).toList();
+    }
+
+    private static List<UUID> reservationIds(List<LedgerEntry> entries) {
+        return entries.stream().map(LedgerEntry::reservationId).toList();
+    }
+
+    private static Array uuidArray(Connection connection, List<UUID> ids) throws SQLException {
+        return connection.createArrayOf("uuid", ids.toArray());
+    }
+
+    // Timestamps hold UTC wall-clock time
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
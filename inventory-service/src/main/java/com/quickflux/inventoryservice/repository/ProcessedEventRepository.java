@@ -2,10 +2,17 @@ package com.quickflux.inventoryservice.repository;
 
 import com.quickflux.inventoryservice.domain.ProcessedEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
 public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, Long> {
     boolean existsByEventId(UUID eventId);
+
+    @Query("SELECT e.eventId FROM ProcessedEvent e WHERE e.eventId IN :eventIds")
+    Set<UUID> findProcessedEventIds(@Param("eventIds") Collection<UUID> eventIds);
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.quickflux.inventoryservice.repository;
+
+import com.quickflux.inventoryservice.domain.ProductImportRow;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * Bulk import plumbing: feed rows are streamed into product_import_staging with COPY, then
+ * merged into products one seq range at a time so each transaction holds its row locks briefly.
+ * A merged range is deleted from staging in the same transaction, so what is left in staging is
+ * exactly what has not been applied yet.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductImportRepository {
+
+    private static final String COPY_STAGING =
+            "COPY product_import_staging (import_id, seq, product_id, sku, name, quantity) FROM STDIN WITH (FORMAT csv)";
+
+    private static final int COPY_BUFFER_CHARS = 256 * 1024;
+
+    // Locks the chunk's existing products in id order, the order reservations lock them in
+    private static final String LOCK_CHUNK = """
+            SELECT p.id FROM products p
+            WHERE p.sku IN (SELECT sku FROM product_import_staging WHERE import_id = ? AND seq > ? AND seq <= ?)
+            ORDER BY p.id
+            FOR UPDATE OF p
+            """;
+
+    // A SKU may repeat in the feed: the last name wins, quantities add up (ADD) or the last wins (SET)
+    private static final String MERGE_CHUNK = """
+            WITH chunk AS (
+                SELECT sku,
+                       (array_agg(product_id ORDER BY seq))[1] AS product_id,
+                       (array_agg(name ORDER BY seq DESC))[1] AS name,
+                       %s AS quantity
+                FROM product_import_staging
+                WHERE import_id = ? AND seq > ? AND seq <= ?
+                GROUP BY sku
+            )
+            INSERT INTO products (id, name, sku, stock_level, sharded, version, created_at, updated_at)
+            SELECT product_id, name, sku, quantity, FALSE, 0, ?, ?
+            FROM chunk
+            ORDER BY sku
+            ON CONFLICT (sku) DO UPDATE
+            SET name = EXCLUDED.name,
+                stock_level = %s,
+                version = products.version + 1,
+                updated_at = EXCLUDED.updated_at
+            RETURNING id
+            """;
+
+    private static final String MERGE_ADD = MERGE_CHUNK.formatted(
+            "SUM(quantity)",
+            "products.stock_level + EXCLUDED.stock_level");
+
+    // For a sharded product only the remainder is written, so that remainder + shards = the feed's figure
+    private static final String MERGE_SET = MERGE_CHUNK.formatted(
+            "(array_agg(quantity ORDER BY seq DESC))[1]",
+            """
+            GREATEST(EXCLUDED.stock_level - COALESCE(
+                         (SELECT SUM(s.stock_level) FROM product_stock_shards s WHERE s.product_id = products.id), 0), 0)""");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams rows into staging with one COPY and returns how many were staged.
+     * onProgress gets the running count each time a buffer is flushed.
+     */
+    public long stage(UUID importId, Iterator<ProductImportRow> rows, LongConsumer onProgress) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING);
+            try {
+                StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 1024);
+                long seq = 0;
+                while (rows.hasNext()) {
+                    ProductImportRow row = rows.next();
+                    seq++;
+                    buffer.append(importId).append(',')
+                            .append(seq).append(',')
+                            .append(UUID.randomUUID()).append(',');
+                    appendQuoted(buffer, row.sku()).append(',');
+                    appendQuoted(buffer, row.name()).append(',')
+                            .append(row.quantity()).append('\n');
+
+                    if (buffer.length() >= COPY_BUFFER_CHARS) {
+                        flush(copyIn, buffer);
+                        onProgress.accept(seq);
+                    }
+                }
+                flush(copyIn, buffer);
+                copyIn.endCopy();
+                onProgress.accept(seq);
+                return seq;
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+    }
+
+    // Caller provides the transaction; returns the ids of the products inserted or updated
+    public List<UUID> mergeChunk(UUID importId, long afterSeq, long toSeq, boolean replaceStock, Instant now) {
+        jdbcTemplate.query(LOCK_CHUNK, (rs, rowNum) -> null, importId, afterSeq, toSeq);
+
+        LocalDateTime updatedAt = LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+        List<UUID> productIds = jdbcTemplate.query(replaceStock ? MERGE_SET : MERGE_ADD,
+                (rs, rowNum) -> rs.getObject("id", UUID.class),
+                importId, afterSeq, toSeq, updatedAt, updatedAt);
+
+        jdbcTemplate.update("DELETE FROM product_import_staging WHERE import_id = ? AND seq > ? AND seq <= ?",
+                importId, afterSeq, toSeq);
+        return productIds;
+    }
+
+    public long countStaging(UUID importId) {
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_import_staging WHERE import_id = ?", Long.class, importId);
+        return rows != null ? rows : 0;
+    }
+
+    public int deleteStaging(UUID importId) {
+        return jdbcTemplate.update("DELETE FROM product_import_staging WHERE import_id = ?", importId);
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (!buffer.isEmpty()) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder buffer, String value) {
+        return buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -1,10 +1,87 @@
 package com.quickflux.inventoryservice.repository;
 
 import com.quickflux.inventoryservice.domain.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, UUID> {
+
+    @Query("SELECT p.sharded FROM Product p WHERE p.id = :id")
+    Optional<Boolean> findShardedById(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.sharded = :sharded, p.stockLevel = :stockLevel, p.version = p.version + 1, p.updatedAt = :now " +
+            "WHERE p.id = :id")
+    int updateSharding(@Param("id") UUID id,
+                       @Param("sharded") boolean sharded,
+                       @Param("stockLevel") int stockLevel,
+                       @Param("now") Instant now);
+
+    // Available stock: the product row plus its shards
+    @Query(value = """
+            SELECT p.id AS productId,
+                   p.stock_level + COALESCE((SELECT SUM(s.stock_level) FROM product_stock_shards s WHERE s.product_id = p.id), 0)
+                       AS available
+            FROM products p
+            WHERE p.id IN (:ids)
+            """, nativeQuery = true)
+    List<StockLevel> findStockLevels(@Param("ids") Collection<UUID> ids);
+
+    interface StockLevel {
+        UUID getProductId();
+        int getAvailable();
+    }
+
+    @Query("SELECT p.stockLevel FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockLevelById(@Param("id") UUID id);
+
+    /*
+     * Conditional stock updates: the WHERE clause is the stock check, so a reservation is one
+     * UPDATE that waits on the row lock instead of a read-modify-write that fails its @Version check.
+     * They bypass @Version checks, so they bump the version themselves.
+     */
+
+    // Decrements stock and inserts the reservation in one statement; returns 1, or 0 if stock is short
+    @Modifying
+    @Query(value = """
+            WITH reserved AS (
+                UPDATE products
+                SET stock_level = stock_level - :quantity, version = version + 1, updated_at = :now
+                WHERE id = :productId AND stock_level >= :quantity
+                RETURNING id
+            )
+            INSERT INTO reservations (id, order_id, product_id, quantity, status, created_at, expires_at, version)
+            SELECT :reservationId, :orderId, id, :quantity, 'RESERVED', :now, :expiresAt, 0 FROM reserved
+            """, nativeQuery = true)
+    int reserve(@Param("reservationId") UUID reservationId,
+                @Param("orderId") UUID orderId,
+                @Param("productId") UUID productId,
+                @Param("quantity") int quantity,
+                @Param("now") Instant now,
+                @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockLevel = p.stockLevel - :quantity, p.version = p.version + 1, p.updatedAt = :now " +
+            "WHERE p.id = :id AND p.stockLevel >= :quantity")
+    int decrementStock(@Param("id") UUID id, @Param("quantity") int quantity, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockLevel = p.stockLevel + :quantity, p.version = p.version + 1, p.updatedAt = :now " +
+            "WHERE p.id = :id")
+    int incrementStock(@Param("id") UUID id, @Param("quantity") int quantity, @Param("now") Instant now);
 }
\ No newline at end of file
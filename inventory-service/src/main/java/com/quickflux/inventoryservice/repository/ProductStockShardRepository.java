@@ -0,0 +1,70 @@
+package com.quickflux.inventoryservice.repository;
+
+import com.quickflux.inventoryservice.domain.ProductStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, ProductStockShard.Key> {
+
+    List<ProductStockShard> findByProductIdOrderByShard(UUID productId);
+
+    @Query("SELECT s.productId AS productId, COUNT(s) AS shards FROM ProductStockShard s GROUP BY s.productId")
+    List<ShardCount> countShardsByProduct();
+
+    interface ShardCount {
+        UUID getProductId();
+        long getShards();
+    }
+
+    @Query("SELECT s.productId AS productId, SUM(s.stockLevel) AS stockLevel FROM ProductStockShard s " +
+            "WHERE s.productId IN :productIds GROUP BY s.productId")
+    List<ShardStock> sumStockByProductIds(@Param("productIds") Collection<? extends UUID> productIds);
+
+    interface ShardStock {
+        UUID getProductId();
+        long getStockLevel();
+    }
+
+    // Shards are locked in shard order so rebalances cannot deadlock with each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = :productId ORDER BY s.shard")
+    List<ProductStockShard> findByProductIdForUpdate(@Param("productId") UUID productId);
+
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.stockLevel = s.stockLevel - :quantity, s.version = s.version + 1, s.updatedAt = :now " +
+            "WHERE s.productId = :productId AND s.shard = :shard AND s.stockLevel >= :quantity")
+    int decrementStock(@Param("productId") UUID productId,
+                       @Param("shard") int shard,
+                       @Param("quantity") int quantity,
+                       @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.stockLevel = s.stockLevel + :quantity, s.version = s.version + 1, s.updatedAt = :now " +
+            "WHERE s.productId = :productId AND s.shard = :shard")
+    int incrementStock(@Param("productId") UUID productId,
+                       @Param("shard") int shard,
+                       @Param("quantity") int quantity,
+                       @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.stockLevel = :stockLevel, s.version = s.version + 1, s.updatedAt = :now " +
+            "WHERE s.productId = :productId AND s.shard = :shard")
+    int setStock(@Param("productId") UUID productId,
+                 @Param("shard") int shard,
+                 @Param("stockLevel") int stockLevel,
+                 @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId = :productId")
+    int deleteByProduct(@Param("productId") UUID productId);
+}
@@ -0,0 +1,61 @@
+package com.quickflux.inventoryservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class ReservationExpiryRepository {
+
+    /*
+     * Claims up to :limit due RESERVED rows (rows locked by another sweeper are skipped), marks
+     * them EXPIRED and returns the stock to give back per product. Does not touch products.
+     */
+    private static final String EXPIRE_BATCH = """
+            WITH due AS (
+                SELECT id FROM reservations
+                WHERE status = 'RESERVED' AND expires_at < ?
+                ORDER BY expires_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ), expired AS (
+                UPDATE reservations r
+                SET status = 'EXPIRED', version = r.version + 1
+                FROM due
+                WHERE r.id = due.id
+                RETURNING r.product_id, r.quantity, r.expires_at
+            )
+            SELECT product_id, SUM(quantity) AS quantity, COUNT(*) AS reservations, MIN(expires_at) AS oldest
+            FROM expired
+            GROUP BY product_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record ExpiredStock(UUID productId, int quantity, int reservations, Instant oldestExpiresAt) {}
+
+    public List<ExpiredStock> expireBatch(Instant now, int limit) {
+        return jdbcTemplate.query(EXPIRE_BATCH,
+                (rs, rowNum) -> new ExpiredStock(
+                        rs.getObject("product_id", UUID.class),
+                        rs.getInt("quantity"),
+                        rs.getInt("reservations"),
+                        toInstant(rs.getObject("oldest", LocalDateTime.class))),
+                toUtc(now), limit);
+    }
+
+    // Timestamps hold UTC wall-clock time
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static Instant toInstant(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC);
+    }
+}
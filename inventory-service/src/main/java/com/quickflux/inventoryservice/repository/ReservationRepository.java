@@ -1,12 +1,18 @@
 package com.quickflux.inventoryservice.repository;
 
 import com.quickflux.inventoryservice.domain.Reservation;
+import com.quickflux.inventoryservice.domain.ReservationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, UUID> {
     List<Reservation> findByOrderId(UUID orderId);
+
+    boolean existsByOrderId(UUID orderId);
+
+    boolean existsByOrderIdAndStatusIn(UUID orderId, Collection<ReservationStatus> statuses);
 }
\ No newline at end of file
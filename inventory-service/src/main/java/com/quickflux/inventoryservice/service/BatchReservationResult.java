@@ -0,0 +1,21 @@
+package com.quickflux.inventoryservice.service;
+
+import java.util.UUID;
+
+public record BatchReservationResult(
+        UUID orderId,
+        UUID productId,
+        int quantity,
+        boolean reserved,
+        UUID reservationId,
+        String error
+) {
+
+    public static BatchReservationResult reserved(BatchReservationLine line, UUID reservationId) {
+        return new BatchReservationResult(line.orderId(), line.productId(), line.quantity(), true, reservationId, null);
+    }
+
+    public static BatchReservationResult rejected(BatchReservationLine line, String error) {
+        return new BatchReservationResult(line.orderId(), line.productId(), line.quantity(), false, null, error);
+    }
+}
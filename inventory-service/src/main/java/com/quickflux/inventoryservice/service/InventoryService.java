@@ -1,18 +1,35 @@
 package com.quickflux.inventoryservice.service;
 
-import com.quickflux.inventoryservice.domain.Product;
+import com.quickflux.inventoryservice.domain.InsufficientStockException;
 import com.quickflux.inventoryservice.domain.Reservation;
 import com.quickflux.inventoryservice.domain.ReservationStatus;
+import com.quickflux.inventoryservice.repository.BatchReservationRepository;
 import com.quickflux.inventoryservice.repository.ProductRepository;
 import com.quickflux.inventoryservice.repository.ReservationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -21,90 +38,399 @@ public class InventoryService {
 
     private final ProductRepository productRepository;
     private final ReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardedStockService shardedStockService;
+    private final BatchReservationRepository batchReservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SoldOutFilter soldOutFilter;
+
+    // Present when quickflux.inventory.engine=ledger; stock then lives in memory
+    private final Optional<StockLedger> stockLedger;
 
     private static final int RESERVATION_TTL_MINUTES = 15;
 
+    @Value("${quickflux.inventory.reserve.max-attempts:3}")
+    private int reserveMaxAttempts;
+
+    @Value("${quickflux.inventory.reserve.retry-backoff-ms:5}")
+    private long reserveRetryBackoffMs;
+
     /**
      * CRITICAL: This method is atomic - all-or-nothing
      * Either stock is reserved or exception is thrown
+     *
+     * The decrement and the reservation insert are one conditional statement, so concurrent
+     * reservations of a hot product queue on the row lock instead of failing optimistic checks.
+     * Only transient lock failures (deadlock, lock timeout) are retried.
+     * Sharded products take their stock from one shard row instead.
      */
-    @Transactional
     public UUID reserveStock(UUID orderId, UUID productId, int quantity) {
+        soldOutFilter.check(productId, quantity);
+
         log.info("Reserving stock for order {}: product {}, quantity {}",
                 orderId, productId, quantity);
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+        if (stockLedger.isPresent()) {
+            return stockLedger.get().reserve(orderId, Map.of(productId, quantity)).get(productId);
+        }
+
+        UUID reservationId = withRetry(() -> transactionTemplate.execute(status -> {
+            // Create reservation with TTL
+            Instant now = Instant.now();
+            Instant expiresAt = now.plus(RESERVATION_TTL_MINUTES, ChronoUnit.MINUTES);
+            UUID id = UUID.randomUUID();
+            eventPublisher.publishEvent(new StockChangedEvent(List.of(productId)));
+
+            if (!shardedStockService.isSharded(productId)) {
+                if (productRepository.reserve(id, orderId, productId, quantity, now, expiresAt) == 1) {
+                    return id;
+                }
+                if (!productRepository.findShardedById(productId).orElse(false)) {
+                    throw stockUnavailable(productId, quantity);
+                }
+            }
+
+            Integer shard = shardedStockService.take(productId, quantity, now);
+            reservationRepository.save(Reservation.builder()
+                    .id(id)
+                    .orderId(orderId)
+                    .productId(productId)
+                    .quantity(quantity)
+                    .status(ReservationStatus.RESERVED)
+                    .stockShard(shard)
+                    .createdAt(now)
+                    .expiresAt(expiresAt)
+                    .build());
+            return id;
+        }));
+
+        log.info("Stock reserved successfully for order {}, reservation {}", orderId, reservationId);
+
+        return reservationId;
+    }
+
+    /**
+     * Reserves every line of an order, all-or-nothing.
+     * Lines for the same product are merged and each product is decremented with a conditional
+     * UPDATE in id order, so two carts sharing products always lock them in the same sequence.
+     */
+    public List<UUID> reserveStock(UUID orderId, List<ReservationLine> lines) {
+        lines.forEach(line -> soldOutFilter.check(line.productId(), line.quantity()));
+
+        if (stockLedger.isPresent()) {
+            return new ArrayList<>(stockLedger.get().reserve(orderId, mergeLines(lines)).values());
+        }
+        return withRetry(() -> transactionTemplate.execute(status ->
+                new ArrayList<>(reserveLines(orderId, lines).values())));
+    }
+
+    /**
+     * Reserves many orders in one call, each order all-or-nothing.
+     * Lines are aggregated per product across the whole batch, so a hot product is locked and
+     * updated once, and every reservation commits in one transaction. Orders are served in the
+     * order they appear, so a short product only rejects the orders that no longer fit.
+     * Results come back in the same order as the lines.
+     */
+    public List<BatchReservationResult> reserveBatch(List<BatchReservationLine> lines) {
+        Map<UUID, Map<UUID, Integer>> quantitiesByOrder = new LinkedHashMap<>();
+        lines.forEach(line -> quantitiesByOrder.computeIfAbsent(line.orderId(), id -> new LinkedHashMap<>())
+                .merge(line.productId(), line.quantity(), Integer::sum));
+
+        log.info("Reserving stock for {} order(s), {} line(s) in batch", quantitiesByOrder.size(), lines.size());
 
-        // This throws InsufficientStockException if stock is too low
-        product.reduceStock(quantity);
-        productRepository.save(product);  // Triggers optimistic lock check
+        BatchOutcome outcome = reserveBatchOutcome(quantitiesByOrder);
+
+        // Orders with sharded products take their stock shard by shard, one transaction each
+        for (UUID orderId : outcome.deferred()) {
+            List<ReservationLine> orderLines = quantitiesByOrder.get(orderId).entrySet().stream()
+                    .map(entry -> new ReservationLine(entry.getKey(), entry.getValue()))
+                    .toList();
+            try {
+                outcome.reservations().put(orderId,
+                        withRetry(() -> transactionTemplate.execute(status -> reserveLines(orderId, orderLines))));
+            } catch (InsufficientStockException | ProductNotFoundException e) {
+                outcome.errors().put(orderId, e.getMessage());
+            } catch (Exception e) {
+                log.error("Batch reservation failed for order {}: {}", orderId, e.getMessage());
+                outcome.errors().put(orderId, "Reservation failed: " + e.getMessage());
+            }
+        }
+
+        return lines.stream()
+                .map(line -> outcome.errors().containsKey(line.orderId())
+                        ? BatchReservationResult.rejected(line, outcome.errors().get(line.orderId()))
+                        : BatchReservationResult.reserved(line, outcome.reservations().get(line.orderId()).get(line.productId())))
+                .toList();
+    }
+
+    private BatchOutcome reserveBatchOutcome(Map<UUID, Map<UUID, Integer>> quantitiesByOrder) {
+        try {
+            return stockLedger.isPresent()
+                    ? reserveBatchInLedger(quantitiesByOrder)
+                    : withRetry(() -> transactionTemplate.execute(status -> reserveAggregated(quantitiesByOrder)));
+        } catch (Exception e) {
+            log.error("Batch reservation of {} order(s) failed: {}", quantitiesByOrder.size(), e.getMessage());
+            BatchOutcome outcome = new BatchOutcome();
+            quantitiesByOrder.keySet().forEach(orderId -> outcome.errors().put(orderId, "Reservation failed: " + e.getMessage()));
+            return outcome;
+        }
+    }
+
+    // Reservation ids by order and product, rejection reasons by order, and orders left for the per-order path
+    private record BatchOutcome(Map<UUID, Map<UUID, UUID>> reservations, Map<UUID, String> errors, List<UUID> deferred) {
+        BatchOutcome() {
+            this(new HashMap<>(), new HashMap<>(), new ArrayList<>());
+        }
+    }
+
+    // Runs in the caller's transaction; safe to retry as a whole
+    private BatchOutcome reserveAggregated(Map<UUID, Map<UUID, Integer>> quantitiesByOrder) {
+        BatchOutcome outcome = new BatchOutcome();
+
+        Set<UUID> productIds = new HashSet<>();
+        quantitiesByOrder.values().forEach(quantities -> productIds.addAll(quantities.keySet()));
+        Map<UUID, BatchReservationRepository.StockRow> stock = batchReservationRepository.lockStock(productIds);
+
+        Map<UUID, Integer> remaining = new HashMap<>();
+        stock.forEach((productId, row) -> remaining.put(productId, row.stockLevel()));
 
-        // Create reservation with TTL
         Instant now = Instant.now();
         Instant expiresAt = now.plus(RESERVATION_TTL_MINUTES, ChronoUnit.MINUTES);
+        Map<UUID, Integer> taken = new HashMap<>();
+        List<Reservation> reservations = new ArrayList<>();
 
-        Reservation reservation = Reservation.builder()
-                .id(UUID.randomUUID())
-                .orderId(orderId)
-                .productId(productId)
-                .quantity(quantity)
-                .status(ReservationStatus.RESERVED)
-                .createdAt(now)
-                .expiresAt(expiresAt)
-                .build();
+        quantitiesByOrder.forEach((orderId, quantities) -> {
+            String error = null;
+            for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+                BatchReservationRepository.StockRow row = stock.get(entry.getKey());
+                if (row == null) {
+                    error = "Product not found: " + entry.getKey();
+                    break;
+                }
+                if (row.sharded()) {
+                    outcome.deferred().add(orderId);
+                    return;
+                }
+                if (remaining.get(entry.getKey()) < entry.getValue()) {
+                    error = "Product " + entry.getKey() + " has only " + remaining.get(entry.getKey())
+                            + " units, requested " + entry.getValue();
+                    break;
+                }
+            }
+            if (error != null) {
+                outcome.errors().put(orderId, error);
+                return;
+            }
 
-        reservationRepository.save(reservation);
+            Map<UUID, UUID> reservationByProduct = new LinkedHashMap<>();
+            quantities.forEach((productId, quantity) -> {
+                remaining.merge(productId, -quantity, Integer::sum);
+                taken.merge(productId, quantity, Integer::sum);
 
-        log.info("Stock reserved successfully for order {}, reservation {}, expires at {}",
-                orderId, reservation.getId(), expiresAt);
+                Reservation reservation = Reservation.builder()
+                        .id(UUID.randomUUID())
+                        .orderId(orderId)
+                        .productId(productId)
+                        .quantity(quantity)
+                        .status(ReservationStatus.RESERVED)
+                        .createdAt(now)
+                        .expiresAt(expiresAt)
+                        .build();
+                reservations.add(reservation);
+                reservationByProduct.put(productId, reservation.getId());
+            });
+            outcome.reservations().put(orderId, reservationByProduct);
+        });
 
-        return reservation.getId();
+        if (!reservations.isEmpty()) {
+            batchReservationRepository.decrementStock(taken, now);
+            eventPublisher.publishEvent(new StockChangedEvent(taken.keySet()));
+            batchReservationRepository.insertReservations(reservations);
+        }
+
+        log.info("Batch reserved {} order(s) across {} product(s); {} rejected, {} left for sharded stock",
+                outcome.reservations().size(), taken.size(), outcome.errors().size(), outcome.deferred().size());
+
+        return outcome;
     }
 
-    @Transactional
-    public void confirmReservation(UUID orderId) {
-        log.info("Confirming reservations for order {}", orderId);
+    // Ledger mode: take stock for every order first, then wait for one group commit
+    private BatchOutcome reserveBatchInLedger(Map<UUID, Map<UUID, Integer>> quantitiesByOrder) {
+        BatchOutcome outcome = new BatchOutcome();
+        Map<UUID, CompletableFuture<Map<UUID, UUID>>> durable = new LinkedHashMap<>();
 
-        List<Reservation> reservations = reservationRepository.findByOrderId(orderId);
+        quantitiesByOrder.forEach((orderId, quantities) -> {
+            try {
+                durable.put(orderId, stockLedger.get().reserveAsync(orderId, quantities));
+            } catch (InsufficientStockException | ProductNotFoundException e) {
+                outcome.errors().put(orderId, e.getMessage());
+            } catch (Exception e) {
+                log.error("Batch reservation failed for order {}: {}", orderId, e.getMessage());
+                outcome.errors().put(orderId, "Reservation failed: " + e.getMessage());
+            }
+        });
 
-        if (reservations.isEmpty()) {
-            throw new ReservationNotFoundException("No reservations found for order: " + orderId);
-        }
+        durable.forEach((orderId, future) -> {
+            try {
+                outcome.reservations().put(orderId, future.join());
+            } catch (Exception e) {
+                log.error("Batch reservation failed for order {}: {}", orderId, e.getMessage());
+                outcome.errors().put(orderId, "Reservation failed: " + e.getMessage());
+            }
+        });
+        return outcome;
+    }
+
+    // Returns reservation id by product id; caller provides the transaction
+    private Map<UUID, UUID> reserveLines(UUID orderId, List<ReservationLine> lines) {
+        log.info("Reserving stock for order {}: {} line(s)", orderId, lines.size());
+
+        Map<UUID, Integer> quantityByProduct = mergeLines(lines);
+
+        // Decrement in a fixed product order so concurrent multi-line reservations cannot deadlock.
+        // UUID text order is Postgres uuid order. The first short product rolls back every line.
+        Instant updatedAt = Instant.now();
+        eventPublisher.publishEvent(new StockChangedEvent(quantityByProduct.keySet()));
+        Map<UUID, Integer> shardByProduct = new HashMap<>();
+        quantityByProduct.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(UUID::toString)))
+                .forEach(entry -> shardByProduct.put(entry.getKey(), takeStock(entry.getKey(), entry.getValue(), updatedAt)));
+
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(RESERVATION_TTL_MINUTES, ChronoUnit.MINUTES);
+
+        Map<UUID, UUID> reservationByProduct = new LinkedHashMap<>();
+        List<Reservation> reservations = quantityByProduct.entrySet().stream()
+                .map(entry -> Reservation.builder()
+                        .id(UUID.randomUUID())
+                        .orderId(orderId)
+                        .productId(entry.getKey())
+                        .quantity(entry.getValue())
+                        .status(ReservationStatus.RESERVED)
+                        .stockShard(shardByProduct.get(entry.getKey()))
+                        .createdAt(now)
+                        .expiresAt(expiresAt)
+                        .build())
+                .peek(reservation -> reservationByProduct.put(reservation.getProductId(), reservation.getId()))
+                .toList();
 
-        reservations.forEach(Reservation::confirm);
         reservationRepository.saveAll(reservations);
 
-        log.info("Confirmed {} reservation(s) for order {}", reservations.size(), orderId);
+        log.info("Stock reserved for order {}: {} product(s), expires at {}", orderId, reservations.size(), expiresAt);
+
+        return reservationByProduct;
+    }
+
+    // Returns the shard the stock came from, or null for the product row
+    private Integer takeStock(UUID productId, int quantity, Instant now) {
+        if (!shardedStockService.isSharded(productId)) {
+            if (productRepository.decrementStock(productId, quantity, now) == 1) {
+                return null;
+            }
+            // The sharded set is refreshed periodically; check before reporting the product short
+            if (!productRepository.findShardedById(productId).orElse(false)) {
+                throw stockUnavailable(productId, quantity);
+            }
+        }
+        return shardedStockService.take(productId, quantity, now);
+    }
+
+    private Map<UUID, Integer> mergeLines(List<ReservationLine> lines) {
+        Map<UUID, Integer> quantityByProduct = new LinkedHashMap<>();
+        lines.forEach(line -> quantityByProduct.merge(line.productId(), line.quantity(), Integer::sum));
+        return quantityByProduct;
+    }
+
+    // Tells a missing product from a short one after a conditional decrement matched no row
+    private RuntimeException stockUnavailable(UUID productId, int quantity) {
+        Instant readAt = Instant.now();
+        return productRepository.findStockLevelById(productId)
+                .<RuntimeException>map(stockLevel -> {
+                    if (stockLevel == 0) {
+                        soldOutFilter.markSoldOut(productId, readAt);
+                    }
+                    return new InsufficientStockException(
+                            "Product " + productId + " has only " + stockLevel + " units, requested " + quantity);
+                })
+                .orElseGet(() -> new ProductNotFoundException("Product not found: " + productId));
+    }
+
+    private <T> T withRetry(Supplier<T> attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.get();
+            } catch (TransientDataAccessException e) {
+                if (i >= reserveMaxAttempts) {
+                    throw e;
+                }
+                log.warn("Reservation attempt {} hit a transient lock failure, retrying: {}", i, e.getMessage());
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, reserveRetryBackoffMs * i + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
     }
 
+    /**
+     * Confirms every RESERVED reservation of the order with one guarded status UPDATE.
+     * Confirming twice is a no-op; confirming released or expired stock is an error.
+     */
     @Transactional
-    public void releaseReservation(UUID orderId) {
-        log.info("Releasing reservations for order {}", orderId);
+    public void confirmReservation(UUID orderId) {
+        log.info("Confirming reservations for order {}", orderId);
 
-        List<Reservation> reservations = reservationRepository.findByOrderId(orderId);
+        if (stockLedger.isPresent()) {
+            stockLedger.get().confirm(orderId);
+            return;
+        }
 
-        if (reservations.isEmpty()) {
-            log.warn("No reservations found to release for order {}", orderId);
+        int confirmed = batchReservationRepository.confirmOrders(List.of(orderId), Instant.now());
+        if (confirmed == 0) {
+            if (!reservationRepository.existsByOrderId(orderId)) {
+                throw new ReservationNotFoundException("No reservations found for order: " + orderId);
+            }
+            if (reservationRepository.existsByOrderIdAndStatusIn(orderId,
+                    List.of(ReservationStatus.RELEASED, ReservationStatus.EXPIRED))) {
+                throw new IllegalStateException("Can only confirm RESERVED reservations, order " + orderId + " was released");
+            }
+            log.info("Reservations for order {} were already confirmed", orderId);
             return;
         }
 
-        for (Reservation reservation : reservations) {
-            if (reservation.getStatus() == ReservationStatus.RESERVED) {
-                reservation.release();
+        log.info("Confirmed {} reservation(s) for order {}", confirmed, orderId);
+    }
 
-                // Restore stock
-                Product product = productRepository.findById(reservation.getProductId())
-                        .orElseThrow(() -> new ProductNotFoundException("Product not found: " + reservation.getProductId()));
+    public void releaseReservation(UUID orderId) {
+        releaseReservations(List.of(orderId));
+    }
 
-                product.restoreStock(reservation.getQuantity());
-                productRepository.save(product);
+    /**
+     * Releases every RESERVED reservation of the given orders and restores their stock in one
+     * statement: one status UPDATE by order id and one increment per product (or shard).
+     * Already released, confirmed and expired reservations are left alone, so redelivery is safe.
+     */
+    public void releaseReservations(Collection<UUID> orderIds) {
+        log.info("Releasing reservations for {} order(s)", orderIds.size());
 
-                log.info("Released reservation {} and restored {} units of product {}",
-                        reservation.getId(), reservation.getQuantity(), reservation.getProductId());
-            }
+        if (stockLedger.isPresent()) {
+            orderIds.forEach(orderId -> stockLedger.get().release(orderId));
+            return;
         }
 
-        reservationRepository.saveAll(reservations);
+        // Concurrent bulk releases may lock the same products in a different order; deadlocks are retried
+        List<UUID> restored = withRetry(() -> transactionTemplate.execute(status -> {
+            List<UUID> productIds = batchReservationRepository.releaseOrders(orderIds, Instant.now());
+            eventPublisher.publishEvent(new StockChangedEvent(productIds));
+            return productIds;
+        }));
+
+        if (restored.isEmpty()) {
+            log.warn("No reservations found to release for order(s) {}", orderIds);
+        } else {
+            log.info("Released reservations of {} order(s) and restored stock of {} product(s)", orderIds.size(), restored.size());
+        }
     }
-}
\ No newline at end of file
+}
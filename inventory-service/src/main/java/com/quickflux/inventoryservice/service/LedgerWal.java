@@ -0,0 +1,83 @@
+package com.quickflux.inventoryservice.service;
+
+import com.quickflux.inventoryservice.domain.LedgerEntry;
+import lombok.extern.slf4j.Slf4j;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of ledger entries, one line each. Only the group-commit thread writes to it.
+ * A batch is durable once append() returns; the file is truncated after the batch reaches Postgres.
+ */
+@Slf4j
+class LedgerWal implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+
+    LedgerWal(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Reads every complete entry. A torn last line (crash mid-append) was never acknowledged and is
+     * cut off, so the next append starts on a fresh line.
+     */
+    List<LedgerEntry> readAll() throws IOException {
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        List<LedgerEntry> entries = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            entries.add(LedgerEntry.parse(content.substring(start, end)));
+            start = end + 1;
+        }
+        if (start < content.length()) {
+            log.warn("Dropping torn ledger WAL entry at offset {}", start);
+            channel.truncate(content.substring(0, start).getBytes(StandardCharsets.UTF_8).length);
+            channel.force(false);
+        }
+        return entries;
+    }
+
+    void append(List<LedgerEntry> entries) throws IOException {
+        StringBuilder lines = new StringBuilder(entries.size() * 160);
+        entries.forEach(entry -> lines.append(entry.toLine()).append('\n'));
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+
+        long sizeBefore = channel.size();
+        try {
+            channel.position(sizeBefore);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // Cut off the partial batch so recovery never replays entries that were not acknowledged
+            channel.truncate(sizeBefore);
+            throw e;
+        }
+    }
+
+    void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,16 @@
+package com.quickflux.inventoryservice.service;
+
+import java.util.UUID;
+
+// Stock across the product row and its shards. There is no price column yet, so no price.
+public record ProductAvailability(
+        UUID productId,
+        String name,
+        String sku,
+        int available
+) {
+
+    ProductAvailability withAvailable(int available) {
+        return new ProductAvailability(productId, name, sku, available);
+    }
+}
@@ -0,0 +1,121 @@
+package com.quickflux.inventoryservice.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.quickflux.inventoryservice.domain.Product;
+import com.quickflux.inventoryservice.repository.ProductRepository;
+import com.quickflux.inventoryservice.repository.ProductStockShardRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through near-cache of product availability for browse traffic.
+ * Entries are refreshed in the background once older than refresh-after, which bounds staleness
+ * from other instances' writes; this instance's own stock changes invalidate entries as soon as
+ * their transaction commits. Misses for many products are loaded with one query.
+ * Stats are published as cache.* metrics tagged cache=product-availability.
+ *
+ * In ledger mode the stock lives in memory, so only the catalog part comes from the cache.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductAvailabilityCache {
+
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final MeterRegistry meterRegistry;
+    private final Optional<StockLedger> stockLedger;
+
+    @Value("${quickflux.inventory.availability-cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${quickflux.inventory.availability-cache.refresh-after:1s}")
+    private Duration refreshAfter;
+
+    @Value("${quickflux.inventory.availability-cache.expire-after:1m}")
+    private Duration expireAfter;
+
+    private LoadingCache<UUID, ProductAvailability> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public ProductAvailability load(UUID productId) {
+                        return loadAll(Set.of(productId)).get(productId);
+                    }
+
+                    @Override
+                    public Map<UUID, ProductAvailability> loadAll(Set<? extends UUID> productIds) {
+                        return ProductAvailabilityCache.this.loadAll(productIds);
+                    }
+                });
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product-availability");
+    }
+
+    public Optional<ProductAvailability> get(UUID productId) {
+        return Optional.ofNullable(cache.get(productId)).map(this::withLedgerStock);
+    }
+
+    // Unknown products are left out of the result
+    public List<ProductAvailability> getAll(Collection<UUID> productIds) {
+        Map<UUID, ProductAvailability> found = cache.getAll(productIds);
+        return productIds.stream()
+                .distinct()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .map(this::withLedgerStock)
+                .toList();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        cache.invalidateAll(event.productIds());
+    }
+
+    private Map<UUID, ProductAvailability> loadAll(Collection<? extends UUID> productIds) {
+        Map<UUID, Integer> shardStock = shardRepository.sumStockByProductIds(productIds).stream()
+                .collect(Collectors.toMap(ProductStockShardRepository.ShardStock::getProductId,
+                        shard -> (int) shard.getStockLevel()));
+
+        Map<UUID, ProductAvailability> loaded = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds.stream().map(UUID.class::cast).toList())) {
+            loaded.put(product.getId(), new ProductAvailability(product.getId(), product.getName(), product.getSku(),
+                    product.getStockLevel() + shardStock.getOrDefault(product.getId(), 0)));
+        }
+        log.debug("Loaded availability of {} of {} product(s)", loaded.size(), productIds.size());
+        return loaded;
+    }
+
+    private ProductAvailability withLedgerStock(ProductAvailability availability) {
+        return stockLedger
+                .flatMap(ledger -> ledger.available(availability.productId()))
+                .map(availability::withAvailable)
+                .orElse(availability);
+    }
+}
@@ -0,0 +1,236 @@
+package com.quickflux.inventoryservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickflux.inventoryservice.domain.ProductImportRow;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Reads a supplier feed one record at a time, so only the current line is ever in memory.
+ * CSV needs a header with sku, name and quantity columns (any order, extra columns ignored);
+ * NDJSON needs one {"sku", "name", "quantity"} object per line. Invalid records are reported
+ * to onRejected and skipped.
+ */
+abstract class ProductFeedReader implements Iterator<ProductImportRow> {
+
+    private static final int MAX_SKU_LENGTH = 50;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    protected final BufferedReader reader;
+    private final Consumer<String> onRejected;
+    private ProductImportRow next;
+    private long record;
+
+    // error is set when the record could not even be split into fields
+    private record RawRow(String sku, String name, String quantity, String error) {
+
+        RawRow(String sku, String name, String quantity) {
+            this(sku, name, quantity, null);
+        }
+    }
+
+    private ProductFeedReader(InputStream in, Consumer<String> onRejected) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        this.onRejected = onRejected;
+    }
+
+    static ProductFeedReader open(ProductImportJob.Format format, InputStream in, ObjectMapper objectMapper,
+                                  Consumer<String> onRejected) {
+        return switch (format) {
+            case CSV -> new Csv(in, onRejected);
+            case NDJSON -> new NdJson(in, objectMapper, onRejected);
+        };
+    }
+
+    // Returns null at end of input
+    protected abstract RawRow readRaw() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            RawRow raw;
+            try {
+                raw = readRaw();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (raw == null) {
+                return false;
+            }
+            record++;
+            try {
+                next = validate(raw);
+            } catch (IllegalArgumentException e) {
+                onRejected.accept("Record " + record + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ProductImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ProductImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    private static ProductImportRow validate(RawRow raw) {
+        if (raw.error() != null) {
+            throw new IllegalArgumentException(raw.error());
+        }
+        String sku = raw.sku() == null ? "" : raw.sku().trim();
+        String name = raw.name() == null ? "" : raw.name().trim();
+        if (sku.isEmpty() || sku.length() > MAX_SKU_LENGTH) {
+            throw new IllegalArgumentException("sku must be 1 to " + MAX_SKU_LENGTH + " characters");
+        }
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("name must be 1 to " + MAX_NAME_LENGTH + " characters");
+        }
+
+        int quantity;
+        try {
+            quantity = Integer.parseInt(raw.quantity() == null ? "" : raw.quantity().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity is not an integer: " + raw.quantity());
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("quantity must not be negative");
+        }
+        return new ProductImportRow(sku, name, quantity);
+    }
+
+    private static final class Csv extends ProductFeedReader {
+
+        private Map<String, Integer> columns;
+
+        private Csv(InputStream in, Consumer<String> onRejected) {
+            super(in, onRejected);
+        }
+
+        @Override
+        protected RawRow readRaw() throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+                for (String column : List.of("sku", "name", "quantity")) {
+                    if (!columns.containsKey(column)) {
+                        throw new IllegalArgumentException("CSV header has no " + column + " column");
+                    }
+                }
+            }
+
+            List<String> fields = readRecord();
+            while (fields != null && fields.size() == 1 && fields.get(0).isBlank()) {
+                fields = readRecord();
+            }
+            if (fields == null) {
+                return null;
+            }
+            return new RawRow(field(fields, "sku"), field(fields, "name"), field(fields, "quantity"));
+        }
+
+        private String field(List<String> fields, String column) {
+            int index = columns.get(column);
+            return index < fields.size() ? fields.get(index) : null;
+        }
+
+        // RFC 4180: quoted fields may contain commas, doubled quotes and line breaks
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("CSV ends inside a quoted field");
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static final class NdJson extends ProductFeedReader {
+
+        private final ObjectMapper objectMapper;
+
+        private NdJson(InputStream in, ObjectMapper objectMapper, Consumer<String> onRejected) {
+            super(in, onRejected);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        protected RawRow readRaw() throws IOException {
+            String line = reader.readLine();
+            while (line != null && line.isBlank()) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                return new RawRow(text(node, "sku"), text(node, "name"), text(node, "quantity"));
+            } catch (JsonProcessingException e) {
+                // One malformed line rejects that record, not the whole feed
+                return new RawRow(null, null, null, "not a JSON object: " + e.getOriginalMessage());
+            }
+        }
+
+        private static String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+}
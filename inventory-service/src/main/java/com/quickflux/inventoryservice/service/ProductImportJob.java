@@ -0,0 +1,117 @@
+package com.quickflux.inventoryservice.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one import, updated by the staging and merge threads and read by status polls.
+ */
+public class ProductImportJob {
+
+    public enum Format { CSV, NDJSON }
+
+    // ADD restocks on top of current stock; SET replaces it (reservations taken meanwhile are not counted)
+    public enum Mode { ADD, SET }
+
+    public enum Status { STAGING, MERGING, COMPLETED, FAILED }
+
+    private static final int MAX_ERRORS = 20;
+
+    public record Progress(
+            UUID importId,
+            Format format,
+            Mode mode,
+            Status status,
+            long staged,
+            long rejected,
+            long merged,
+            List<String> errors,
+            Instant startedAt,
+            Instant finishedAt
+    ) {}
+
+    private final UUID id;
+    private final Format format;
+    private final Mode mode;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong staged = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+    private volatile Status status = Status.STAGING;
+    private volatile Instant finishedAt;
+
+    public ProductImportJob(UUID id, Format format, Mode mode) {
+        this.id = id;
+        this.format = format;
+        this.mode = mode;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getStaged() {
+        return staged.get();
+    }
+
+    // Chunks are merged in seq order, so this is also the last merged seq
+    public long getMerged() {
+        return merged.get();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    void staged(long rows) {
+        staged.set(rows);
+    }
+
+    void rowRejected(String error) {
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    void rowsMerged(long rows) {
+        merged.addAndGet(rows);
+    }
+
+    void merging() {
+        finishedAt = null;
+        status = Status.MERGING;
+    }
+
+    void completed() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void failed(String error) {
+        synchronized (errors) {
+            errors.add(error);
+        }
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    public Progress progress() {
+        List<String> errorsSnapshot;
+        synchronized (errors) {
+            errorsSnapshot = List.copyOf(errors);
+        }
+        return new Progress(id, format, mode, status, staged.get(), rejected.get(), merged.get(),
+                errorsSnapshot, startedAt, finishedAt);
+    }
+}
@@ -0,0 +1,176 @@
+package com.quickflux.inventoryservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.quickflux.inventoryservice.repository.ProductImportRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bulk catalog and restock import from supplier feeds.
+ *
+ * The request thread parses the feed as it arrives and COPYs it into a staging table, so memory
+ * use does not grow with the feed. A background thread then merges staging into products in
+ * chunks of chunk-size rows, one short transaction each, so live reservations only ever wait on
+ * one chunk's row locks. Progress is kept in memory on the instance that ran the import.
+ *
+ * Each chunk leaves staging as it is merged, so a merge that fails partway keeps only the rows
+ * not yet applied and is resumed (not re-run, which in add mode would restock the merged chunks
+ * twice). A failed import's staging rows are dropped when its job expires.
+ *
+ * Not available in ledger mode: the ledger's in-memory counters would not see the new stock.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private final ProductImportRepository productImportRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Optional<StockLedger> stockLedger;
+
+    @Value("${quickflux.inventory.import.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${quickflux.inventory.import.max-attempts:3}")
+    private int maxAttempts;
+
+    private final Cache<UUID, ProductImportJob> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(24))
+            .maximumSize(1000)
+            .removalListener(this::dropStagingIfFailed)
+            .build();
+
+    // One merge at a time: concurrent imports would only contend for the same rows
+    private final ExecutorService mergeExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("product-import-"));
+
+    @PreDestroy
+    void stop() {
+        mergeExecutor.shutdownNow();
+    }
+
+    /**
+     * Stages the feed (blocking until it has been read) and queues the merge.
+     */
+    public ProductImportJob.Progress start(InputStream feed, ProductImportJob.Format format, ProductImportJob.Mode mode) {
+        if (stockLedger.isPresent()) {
+            throw new IllegalStateException("Imports are not available with the ledger engine");
+        }
+
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID(), format, mode);
+        jobs.put(job.getId(), job);
+        log.info("Import {} started ({}, {})", job.getId(), format, mode);
+
+        try {
+            ProductFeedReader rows = ProductFeedReader.open(format, feed, objectMapper, job::rowRejected);
+            productImportRepository.stage(job.getId(), rows, job::staged);
+        } catch (Exception e) {
+            log.error("Import {} failed while staging: {}", job.getId(), e.getMessage());
+            job.failed("Staging failed: " + e.getMessage());
+            productImportRepository.deleteStaging(job.getId());
+            return job.progress();
+        }
+
+        job.merging();
+        mergeExecutor.execute(() -> merge(job, 0));
+        return job.progress();
+    }
+
+    /**
+     * Queues the rest of a failed merge, starting after the last chunk it merged.
+     */
+    public Optional<ProductImportJob.Progress> resume(UUID importId) {
+        ProductImportJob job = jobs.getIfPresent(importId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (job.getStatus() != ProductImportJob.Status.FAILED) {
+            throw new IllegalStateException("Import " + importId + " is " + job.getStatus() + ", only a failed import can be resumed");
+        }
+
+        long mergedSeq = job.getMerged();
+        if (productImportRepository.countStaging(importId) == 0) {
+            // Staging is UNLOGGED: a database crash empties it
+            job.failed("Nothing left to resume: staged rows after seq " + mergedSeq + " are gone, import them again");
+            return Optional.of(job.progress());
+        }
+
+        log.info("Import {} resumed after seq {}", importId, mergedSeq);
+        job.merging();
+        mergeExecutor.execute(() -> merge(job, mergedSeq));
+        return Optional.of(job.progress());
+    }
+
+    public Optional<ProductImportJob.Progress> getProgress(UUID importId) {
+        return Optional.ofNullable(jobs.getIfPresent(importId)).map(ProductImportJob::progress);
+    }
+
+    private void dropStagingIfFailed(UUID importId, ProductImportJob job, RemovalCause cause) {
+        if (importId != null && job != null && job.getStatus() == ProductImportJob.Status.FAILED) {
+            productImportRepository.deleteStaging(importId);
+        }
+    }
+
+    private void merge(ProductImportJob job, long mergedSeq) {
+        long staged = job.getStaged();
+        boolean replaceStock = job.getMode() == ProductImportJob.Mode.SET;
+        log.info("Import {}: merging staged rows ({}, {}] in chunks of {}", job.getId(), mergedSeq, staged, chunkSize);
+
+        try {
+            for (long afterSeq = mergedSeq; afterSeq < staged; afterSeq += chunkSize) {
+                long from = afterSeq;
+                long to = Math.min(afterSeq + chunkSize, staged);
+                mergeChunk(job, from, to, replaceStock);
+                job.rowsMerged(to - from);
+            }
+            job.completed();
+            log.info("Import {} completed: {} row(s) merged, {} rejected",
+                    job.getId(), staged, job.progress().rejected());
+            productImportRepository.deleteStaging(job.getId());
+        } catch (Exception e) {
+            // Staging keeps the unmerged rows for resume
+            log.error("Import {} failed while merging after seq {}: {}", job.getId(), job.getMerged(), e.getMessage());
+            job.failed("Merge failed after seq " + job.getMerged() + ": " + e.getMessage());
+        }
+    }
+
+    // Chunks that lost a deadlock against live reservations are retried
+    private void mergeChunk(ProductImportJob job, long afterSeq, long toSeq, boolean replaceStock) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<UUID> productIds = productImportRepository.mergeChunk(
+                            job.getId(), afterSeq, toSeq, replaceStock, Instant.now());
+                    eventPublisher.publishEvent(new StockChangedEvent(productIds));
+                });
+                return;
+            } catch (TransientDataAccessException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.warn("Import {}: chunk ({}, {}] hit a transient lock failure, retrying: {}",
+                        job.getId(), afterSeq, toSeq, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.quickflux.inventoryservice.service;
+
+import java.util.List;
+import java.util.UUID;
+
+// Aggregated stock of a product: the unsharded remainder plus every shard
+public record ProductStockView(
+        UUID productId,
+        boolean sharded,
+        int available,
+        int remainder,
+        List<Shard> shards
+) {
+
+    public record Shard(int shard, int stockLevel) {}
+}
@@ -0,0 +1,141 @@
+package com.quickflux.inventoryservice.service;
+
+import com.quickflux.inventoryservice.domain.LedgerEntry;
+import com.quickflux.inventoryservice.repository.ProductRepository;
+import com.quickflux.inventoryservice.repository.ReservationExpiryRepository;
+import com.quickflux.inventoryservice.repository.ReservationExpiryRepository.ExpiredStock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Expires RESERVED reservations past expires_at and gives their stock back.
+ *
+ * Each batch is one short transaction: due rows are claimed with SKIP LOCKED (so several instances
+ * split the work) and marked EXPIRED, then stock is restored with one increment per product, in
+ * product id order and last, so the hot products rows are only locked until the commit.
+ * In ledger mode the ledger expires its own open reservations instead.
+ *
+ * Metrics: inventory.reservations.expired, inventory.reservations.expired.units,
+ * inventory.expiry.batch (timer) and inventory.expiry.lag (seconds the oldest due reservation has
+ * waited past its expiry when a sweep stops early; 0 when the sweep drained everything).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationExpirySweeper {
+
+    private final ReservationExpiryRepository reservationExpiryRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Optional<StockLedger> stockLedger;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${quickflux.inventory.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${quickflux.inventory.expiry.max-batches-per-sweep:20}")
+    private int maxBatchesPerSweep;
+
+    private Counter expiredReservations;
+    private Counter expiredUnits;
+    private Timer batchTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private record BatchResult(int reservations, Instant oldestExpiresAt) {}
+
+    @PostConstruct
+    void registerMetrics() {
+        expiredReservations = Counter.builder("inventory.reservations.expired")
+                .description("Reservations expired by the sweeper")
+                .register(meterRegistry);
+        expiredUnits = Counter.builder("inventory.reservations.expired.units")
+                .description("Stock units returned by expired reservations")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("inventory.expiry.batch")
+                .description("Time to expire one batch of reservations")
+                .register(meterRegistry);
+        Gauge.builder("inventory.expiry.lag", lagSeconds, AtomicLong::get)
+                .description("Seconds the oldest unswept reservation is past its expiry")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${quickflux.inventory.expiry.sweep-interval-ms:5000}")
+    public void sweep() {
+        try {
+            BatchResult last = null;
+            for (int i = 0; i < maxBatchesPerSweep; i++) {
+                last = batchTimer.record(() -> expireBatch(Instant.now()));
+                if (last.reservations() < batchSize) {
+                    break;
+                }
+            }
+
+            // Stopped on a full batch: there is a backlog at least as old as that batch
+            boolean backlog = last != null && last.reservations() == batchSize && last.oldestExpiresAt() != null;
+            lagSeconds.set(backlog ? Duration.between(last.oldestExpiresAt(), Instant.now()).toSeconds() : 0);
+        } catch (Exception e) {
+            log.error("Reservation expiry sweep failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private BatchResult expireBatch(Instant now) {
+        if (stockLedger.isPresent()) {
+            List<LedgerEntry> expired = stockLedger.get().expireDue(now, batchSize);
+            countExpired(expired.size(), expired.stream().mapToInt(LedgerEntry::quantity).sum());
+            return new BatchResult(expired.size(), expired.stream()
+                    .map(entry -> Instant.ofEpochMilli(entry.expiresAtMillis()))
+                    .min(Comparator.naturalOrder())
+                    .orElse(null));
+        }
+
+        List<ExpiredStock> expired = transactionTemplate.execute(status -> {
+            List<ExpiredStock> batch = reservationExpiryRepository.expireBatch(now, batchSize);
+
+            Instant updatedAt = Instant.now();
+            batch.stream()
+                    .sorted(Comparator.comparing(stock -> stock.productId().toString()))
+                    .forEach(stock -> productRepository.incrementStock(stock.productId(), stock.quantity(), updatedAt));
+            eventPublisher.publishEvent(new StockChangedEvent(batch.stream().map(ExpiredStock::productId).toList()));
+            return batch;
+        });
+
+        int reservations = expired.stream().mapToInt(ExpiredStock::reservations).sum();
+        if (reservations > 0) {
+            Map<UUID, Integer> unitsByProduct = expired.stream()
+                    .collect(Collectors.toMap(ExpiredStock::productId, ExpiredStock::quantity));
+            log.info("Expired {} reservation(s), restored stock {}", reservations, unitsByProduct);
+        }
+        countExpired(reservations, expired.stream().mapToInt(ExpiredStock::quantity).sum());
+
+        return new BatchResult(reservations, expired.stream()
+                .map(ExpiredStock::oldestExpiresAt)
+                .min(Comparator.naturalOrder())
+                .orElse(null));
+    }
+
+    private void countExpired(int reservations, int units) {
+        expiredReservations.increment(reservations);
+        expiredUnits.increment(units);
+    }
+}
@@ -0,0 +1,10 @@
+package com.quickflux.inventoryservice.service;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.util.UUID;
+
+public record ReservationLine(
+        @NotNull UUID productId,
+        @Min(1) int quantity
+) {}
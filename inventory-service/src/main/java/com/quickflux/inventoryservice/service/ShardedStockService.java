@@ -0,0 +1,201 @@
+package com.quickflux.inventoryservice.service;
+
+import com.quickflux.inventoryservice.domain.InsufficientStockException;
+import com.quickflux.inventoryservice.domain.Product;
+import com.quickflux.inventoryservice.domain.ProductStockShard;
+import com.quickflux.inventoryservice.repository.ProductRepository;
+import com.quickflux.inventoryservice.repository.ProductStockShardRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Sharded stock for hot products. A sharded product's stock is split across N rows in
+ * product_stock_shards, so concurrent reservations lock different rows instead of queueing on one
+ * products row. A reservation starts at a random shard, moves to the siblings when it runs dry and
+ * finally falls back to products.stock_level, the unsharded remainder (where expired stock lands).
+ * Rebalancing spreads the total evenly across the shards again.
+ *
+ * A single request larger than every shard and the remainder is refused even if the total would
+ * cover it; rebalance keeps that rare by keeping the shards even.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardedStockService {
+
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final Optional<StockLedger> stockLedger;
+    private final SoldOutFilter soldOutFilter;
+
+    @Value("${quickflux.inventory.sharding.max-shards:64}")
+    private int maxShards;
+
+    // Shard count per sharded product; refreshed periodically, so callers double-check on a miss
+    private volatile Map<UUID, Integer> shardCounts = Map.of();
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${quickflux.inventory.sharding.refresh-interval-ms:5000}")
+    public void refresh() {
+        shardCounts = shardRepository.countShardsByProduct().stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        ProductStockShardRepository.ShardCount::getProductId,
+                        count -> (int) count.getShards()));
+    }
+
+    public boolean isSharded(UUID productId) {
+        return shardCounts.containsKey(productId);
+    }
+
+    /**
+     * Takes stock from one shard (or the remainder) in the caller's transaction.
+     * Returns the shard used, or null when it came from the remainder.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Integer take(UUID productId, int quantity, Instant now) {
+        Integer shards = shardCounts.get(productId);
+        if (shards == null) {
+            shards = shardRepository.findByProductIdOrderByShard(productId).size();
+        }
+
+        int start = shards > 0 ? ThreadLocalRandom.current().nextInt(shards) : 0;
+        for (int i = 0; i < shards; i++) {
+            int shard = (start + i) % shards;
+            if (shardRepository.decrementStock(productId, shard, quantity, now) == 1) {
+                return shard;
+            }
+        }
+
+        if (productRepository.decrementStock(productId, quantity, now) == 1) {
+            return null;
+        }
+
+        Instant readAt = Instant.now();
+        int available = getStock(productId).available();
+        if (available == 0) {
+            soldOutFilter.markSoldOut(productId, readAt);
+        }
+        throw new InsufficientStockException("Product " + productId + " has only " + available
+                + " units across " + shards + " shards, requested " + quantity);
+    }
+
+    @Transactional
+    public ProductStockView enable(UUID productId, int shardCount) {
+        if (shardCount < 1 || shardCount > maxShards) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + maxShards);
+        }
+        if (stockLedger.isPresent()) {
+            throw new IllegalStateException("Sharded stock is not available with the ledger engine");
+        }
+
+        Product product = lockProduct(productId);
+        if (product.getSharded()) {
+            throw new IllegalStateException("Product " + productId + " is already sharded");
+        }
+
+        Instant now = Instant.now();
+        int[] levels = split(product.getStockLevel(), shardCount);
+        shardRepository.saveAll(IntStream.range(0, shardCount)
+                .mapToObj(shard -> ProductStockShard.builder()
+                        .productId(productId)
+                        .shard(shard)
+                        .stockLevel(levels[shard])
+                        .updatedAt(now)
+                        .build())
+                .toList());
+        productRepository.updateSharding(productId, true, 0, now);
+
+        log.info("Sharded product {} into {} shards ({} units)", productId, shardCount, product.getStockLevel());
+        return getStock(productId);
+    }
+
+    @Transactional
+    public ProductStockView disable(UUID productId) {
+        Product product = lockProduct(productId);
+        int total = product.getStockLevel() + shardRepository.findByProductIdForUpdate(productId).stream()
+                .mapToInt(ProductStockShard::getStockLevel)
+                .sum();
+
+        shardRepository.deleteByProduct(productId);
+        productRepository.updateSharding(productId, false, total, Instant.now());
+
+        log.info("Folded shards of product {} back into one row ({} units)", productId, total);
+        return getStock(productId);
+    }
+
+    /**
+     * Moves units so every shard holds an even share of the total and the remainder is empty.
+     * Locks the product row, then its shards in shard order, for the duration of one short transaction.
+     */
+    @Transactional
+    public ProductStockView rebalance(UUID productId) {
+        Product product = lockProduct(productId);
+        List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("Product " + productId + " is not sharded");
+        }
+
+        int total = product.getStockLevel() + shards.stream().mapToInt(ProductStockShard::getStockLevel).sum();
+        int[] levels = split(total, shards.size());
+
+        Instant now = Instant.now();
+        shards.forEach(shard -> shardRepository.setStock(productId, shard.getShard(), levels[shard.getShard()], now));
+        productRepository.updateSharding(productId, true, 0, now);
+
+        log.info("Rebalanced product {}: {} units across {} shards", productId, total, shards.size());
+        return getStock(productId);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductStockView getStock(UUID productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+        List<ProductStockView.Shard> shards = shardRepository.findByProductIdOrderByShard(productId).stream()
+                .map(shard -> new ProductStockView.Shard(shard.getShard(), shard.getStockLevel()))
+                .toList();
+
+        int available = product.getStockLevel() + shards.stream().mapToInt(ProductStockView.Shard::stockLevel).sum();
+        return new ProductStockView(productId, product.getSharded(), available, product.getStockLevel(), shards);
+    }
+
+    private Product lockProduct(UUID productId) {
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+        refreshAfterCommit();
+        return product;
+    }
+
+    private void refreshAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh();
+            }
+        });
+    }
+
+    // Splits total into n near-equal parts; the first total % n parts get one extra unit
+    private static int[] split(int total, int n) {
+        int[] levels = new int[n];
+        for (int i = 0; i < n; i++) {
+            levels[i] = total / n + (i < total % n ? 1 : 0);
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,10 @@
+package com.quickflux.inventoryservice.service;
+
+import com.quickflux.inventoryservice.domain.InsufficientStockException;
+
+// Thrown on the hot path of a drop, so it skips the stack trace
+public class SoldOutException extends InsufficientStockException {
+    public SoldOutException(String message) {
+        super(message, false);
+    }
+}
@@ -0,0 +1,80 @@
+package com.quickflux.inventoryservice.service;
+
+import com.quickflux.contracts.events.StockLevelV1;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-instance set of products known to be at zero stock, checked before any reservation
+ * touches the database. A product is marked when a reservation finds it empty or stock.levels
+ * reports zero, and cleared by any committed stock change on this instance (release, expiry,
+ * restock) or a non-zero stock.levels record. Every observation carries the time it was read
+ * and only newer ones win, so a late message cannot re-mark a product that was restocked since.
+ *
+ * A wrongly cleared product just goes to the database; a wrongly marked one is rejected until
+ * the next stock.levels record for it, at most one coalesce window plus consumer lag later.
+ */
+@Component
+@RequiredArgsConstructor
+public class SoldOutFilter {
+
+    private record Observation(boolean soldOut, Instant asOf) {}
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UUID, Observation> observations = new ConcurrentHashMap<>();
+
+    private Counter rejected;
+
+    @PostConstruct
+    void registerMetrics() {
+        rejected = Counter.builder("inventory.sold_out.rejected")
+                .description("Reservations rejected by the sold-out filter without touching the database")
+                .register(meterRegistry);
+        Gauge.builder("inventory.sold_out.products", observations,
+                        map -> map.values().stream().filter(Observation::soldOut).count())
+                .description("Products currently marked sold out on this instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Throws SoldOutException if the product is known to be at zero.
+     */
+    public void check(UUID productId, int quantity) {
+        Observation observation = observations.get(productId);
+        if (observation != null && observation.soldOut()) {
+            rejected.increment();
+            throw new SoldOutException("Product " + productId + " is sold out, requested " + quantity);
+        }
+    }
+
+    // readAt must be taken before the read that found the product empty
+    public void markSoldOut(UUID productId, Instant readAt) {
+        observe(productId, new Observation(true, readAt));
+    }
+
+    public void apply(StockLevelV1 level) {
+        observe(level.productId(), new Observation(level.available() <= 0, level.asOf()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        Observation cleared = new Observation(false, Instant.now());
+        event.productIds().forEach(productId -> observe(productId, cleared));
+    }
+
+    private void observe(UUID productId, Observation observation) {
+        observations.merge(productId, observation,
+                (current, incoming) -> incoming.asOf().isBefore(current.asOf()) ? current : incoming);
+    }
+}
@@ -0,0 +1,7 @@
+package com.quickflux.inventoryservice.service;
+
+import java.util.Collection;
+import java.util.UUID;
+
+// Published inside the transaction that changed stock; listeners act after it commits
+public record StockChangedEvent(Collection<UUID> productIds) {}
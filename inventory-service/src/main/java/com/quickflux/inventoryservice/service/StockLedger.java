@@ -0,0 +1,430 @@
+package com.quickflux.inventoryservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quickflux.inventoryservice.domain.InsufficientStockException;
+import com.quickflux.inventoryservice.domain.LedgerEntry;
+import com.quickflux.inventoryservice.domain.ReservationStatus;
+import com.quickflux.inventoryservice.repository.LedgerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * In-memory stock engine (quickflux.inventory.engine=ledger) for flash sales.
+ *
+ * Available counts live in lock-free AtomicIntegers, so a reservation is a CAS in memory rather
+ * than a wait on the products row lock. Every operation is queued for a single group-commit thread
+ * which, every few milliseconds, appends the queued batch to a local write-ahead log and fsyncs it -
+ * that is the durable acknowledgement callers wait for - and then applies the batch to Postgres in
+ * one transaction. On startup the log is replayed into Postgres before the snapshot is loaded.
+ *
+ * A batch Postgres keeps rejecting (a constraint violation, not an outage) is retried
+ * max-apply-attempts times, then applied entry by entry: entries that still fail are moved to a
+ * quarantine file next to the WAL for an operator, so one bad entry cannot stall the ledger.
+ * Outages are retried indefinitely.
+ *
+ * Metrics: inventory.ledger.unapplied (entries durable in the WAL but not yet in Postgres),
+ * inventory.ledger.quarantined.
+ *
+ * The ledger is authoritative: only one instance may run in this mode, and stock must not be
+ * changed in Postgres behind its back while it runs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quickflux.inventory.engine", havingValue = "ledger")
+@RequiredArgsConstructor
+public class StockLedger {
+
+    private static final int RESERVATION_TTL_MINUTES = 15;
+
+    private final LedgerRepository ledgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${quickflux.inventory.ledger.wal-path:data/inventory-ledger.wal}")
+    private String walPath;
+
+    @Value("${quickflux.inventory.ledger.flush-interval-ms:2}")
+    private long flushIntervalMs;
+
+    @Value("${quickflux.inventory.ledger.max-batch:5000}")
+    private int maxBatch;
+
+    @Value("${quickflux.inventory.ledger.ack-timeout-ms:2000}")
+    private long ackTimeoutMs;
+
+    @Value("${quickflux.inventory.ledger.max-apply-attempts:5}")
+    private int maxApplyAttempts;
+
+    private final Map<UUID, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    // Open (RESERVED) reservations by order; lists are replaced, never mutated
+    private final Map<UUID, List<LedgerEntry>> openByOrder = new ConcurrentHashMap<>();
+
+    // How recently closed orders ended (Postgres may not have them yet); older ones are looked up there
+    private final Cache<UUID, LedgerEntry.Type> closedOrders = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+
+    // Durable in the WAL but not yet in Postgres; touched only by the group-commit thread
+    private final List<LedgerEntry> unapplied = new ArrayList<>();
+    private final AtomicInteger unappliedCount = new AtomicInteger();
+    private int rejectedApplies;
+
+    private LedgerWal wal;
+    private LedgerWal quarantine;
+    private Counter quarantined;
+    private ScheduledExecutorService groupCommit;
+
+    private record Pending(List<LedgerEntry> entries, CompletableFuture<Void> durable) {}
+
+    @PostConstruct
+    void start() throws IOException {
+        wal = new LedgerWal(Path.of(walPath));
+        quarantine = new LedgerWal(Path.of(walPath + ".quarantine"));
+
+        quarantined = Counter.builder("inventory.ledger.quarantined")
+                .description("Ledger entries Postgres rejected, moved to the quarantine file")
+                .register(meterRegistry);
+        Gauge.builder("inventory.ledger.unapplied", unappliedCount, AtomicInteger::get)
+                .description("Ledger entries durable in the WAL but not yet applied to Postgres")
+                .register(meterRegistry);
+
+        List<LedgerEntry> replay = wal.readAll();
+        if (!replay.isEmpty()) {
+            log.warn("Replaying {} stock ledger entries from {}", replay.size(), walPath);
+            unapplied.addAll(replay);
+            // Nothing is waiting on these, so there is no point retrying a rejection
+            applyUnapplied(true);
+        }
+
+        // The ledger keeps one counter per product and does not know about stock shards
+        int sharded = ledgerRepository.countShardedProducts();
+        if (sharded > 0) {
+            throw new IllegalStateException(sharded + " product(s) have sharded stock; fold them back before using the ledger engine");
+        }
+
+        ledgerRepository.loadStockLevels().forEach((productId, level) -> available.put(productId, new AtomicInteger(level)));
+        ledgerRepository.loadOpenReservations().forEach(entry -> openByOrder.merge(entry.orderId(), List.of(entry), StockLedger::concat));
+
+        log.info("Stock ledger loaded: {} products, {} orders with open reservations", available.size(), openByOrder.size());
+
+        groupCommit = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("stock-ledger-"));
+        groupCommit.scheduleWithFixedDelay(this::groupCommit, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        groupCommit.shutdown();
+        groupCommit.awaitTermination(5, TimeUnit.SECONDS);
+        groupCommit();
+        wal.close();
+        quarantine.close();
+    }
+
+    /**
+     * Reserves every product of an order, all-or-nothing, and returns reservation id by product id
+     * once the reservations are durable.
+     */
+    public Map<UUID, UUID> reserve(UUID orderId, Map<UUID, Integer> quantityByProduct) {
+        return await(reserveAsync(orderId, quantityByProduct));
+    }
+
+    /**
+     * Takes the stock immediately (throws if any product is short) and completes when durable.
+     */
+    public CompletableFuture<Map<UUID, UUID>> reserveAsync(UUID orderId, Map<UUID, Integer> quantityByProduct) {
+        List<Map.Entry<UUID, Integer>> taken = new ArrayList<>();
+        try {
+            quantityByProduct.forEach((productId, quantity) -> {
+                AtomicInteger counter = counter(productId);
+                if (!tryTake(counter, quantity)) {
+                    throw new InsufficientStockException(
+                            "Product " + productId + " has only " + counter.get() + " units, requested " + quantity);
+                }
+                taken.add(Map.entry(productId, quantity));
+            });
+        } catch (RuntimeException e) {
+            taken.forEach(entry -> available.get(entry.getKey()).addAndGet(entry.getValue()));
+            throw e;
+        }
+
+        Instant now = Instant.now();
+        long expiresAt = now.plus(RESERVATION_TTL_MINUTES, ChronoUnit.MINUTES).toEpochMilli();
+
+        Map<UUID, UUID> reservationByProduct = new LinkedHashMap<>();
+        List<LedgerEntry> entries = quantityByProduct.entrySet().stream()
+                .map(entry -> new LedgerEntry(LedgerEntry.Type.RESERVE, UUID.randomUUID(), orderId,
+                        entry.getKey(), entry.getValue(), now.toEpochMilli(), expiresAt))
+                .peek(entry -> reservationByProduct.put(entry.productId(), entry.reservationId()))
+                .toList();
+
+        openByOrder.merge(orderId, entries, StockLedger::concat);
+
+        return submit(entries).thenApply(durable -> reservationByProduct);
+    }
+
+    public void confirm(UUID orderId) {
+        List<LedgerEntry> open = openByOrder.remove(orderId);
+        if (open == null) {
+            rejectUnlessConfirmed(orderId);
+            log.info("Reservations for order {} were already confirmed", orderId);
+            return;
+        }
+        closedOrders.put(orderId, LedgerEntry.Type.CONFIRM);
+        await(submit(open.stream().map(entry -> entry.as(LedgerEntry.Type.CONFIRM)).toList()));
+        log.info("Confirmed {} reservation(s) for order {}", open.size(), orderId);
+    }
+
+    // Same answers as the DB engine: a redelivered confirm is a no-op, one for a released order is refused
+    private void rejectUnlessConfirmed(UUID orderId) {
+        LedgerEntry.Type closedAs = closedOrders.getIfPresent(orderId);
+        if (closedAs == LedgerEntry.Type.CONFIRM) {
+            return;
+        }
+        if (closedAs == null) {
+            List<ReservationStatus> statuses = ledgerRepository.findReservationStatuses(orderId);
+            if (statuses.isEmpty()) {
+                throw new ReservationNotFoundException("No reservations found for order: " + orderId);
+            }
+            if (!statuses.contains(ReservationStatus.RELEASED) && !statuses.contains(ReservationStatus.EXPIRED)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Can only confirm RESERVED reservations, order " + orderId + " was released");
+    }
+
+    public void release(UUID orderId) {
+        List<LedgerEntry> open = openByOrder.remove(orderId);
+        if (open == null) {
+            log.warn("No open reservations found to release for order {}", orderId);
+            return;
+        }
+        closedOrders.put(orderId, LedgerEntry.Type.RELEASE);
+        await(submit(open.stream().map(entry -> entry.as(LedgerEntry.Type.RELEASE)).toList()));
+        log.info("Released {} reservation(s) for order {}", open.size(), orderId);
+    }
+
+    /**
+     * Expires up to limit open reservations that are past their expiry; stock returns once durable.
+     * Returns the expired reservations.
+     */
+    public List<LedgerEntry> expireDue(Instant now, int limit) {
+        long cutoff = now.toEpochMilli();
+        List<LedgerEntry> expired = new ArrayList<>();
+
+        for (UUID orderId : openByOrder.keySet()) {
+            if (expired.size() >= limit) {
+                break;
+            }
+            openByOrder.computeIfPresent(orderId, (id, open) -> {
+                List<LedgerEntry> due = open.stream().filter(entry -> entry.expiresAtMillis() < cutoff).toList();
+                if (due.isEmpty()) {
+                    return open;
+                }
+                expired.addAll(due);
+                closedOrders.put(id, LedgerEntry.Type.EXPIRE);
+                List<LedgerEntry> remaining = open.stream().filter(entry -> entry.expiresAtMillis() >= cutoff).toList();
+                return remaining.isEmpty() ? null : remaining;
+            });
+        }
+
+        if (!expired.isEmpty()) {
+            await(submit(expired.stream().map(entry -> entry.as(LedgerEntry.Type.EXPIRE)).toList()));
+        }
+        return expired;
+    }
+
+    private CompletableFuture<Void> submit(List<LedgerEntry> entries) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        pending.add(new Pending(entries, durable));
+        return durable;
+    }
+
+    // Stock not yet reserved, or empty if the ledger has not seen the product
+    public Optional<Integer> available(UUID productId) {
+        return Optional.ofNullable(available.get(productId)).map(AtomicInteger::get);
+    }
+
+    private AtomicInteger counter(UUID productId) {
+        // Products created after startup have no ledger history yet, so Postgres is exact for them
+        AtomicInteger counter = available.computeIfAbsent(productId,
+                id -> ledgerRepository.findStockLevel(id).map(AtomicInteger::new).orElse(null));
+        if (counter == null) {
+            throw new ProductNotFoundException("Product not found: " + productId);
+        }
+        return counter;
+    }
+
+    private static boolean tryTake(AtomicInteger counter, int quantity) {
+        int current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    private <T> T await(CompletableFuture<T> durable) {
+        try {
+            return durable.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Stock ledger write failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Stock ledger write not acknowledged within " + ackTimeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for stock ledger write", e);
+        }
+    }
+
+    void groupCommit() {
+        try {
+            List<Pending> batch = new ArrayList<>();
+            int size = 0;
+            Pending next;
+            while (size < maxBatch && (next = pending.poll()) != null) {
+                batch.add(next);
+                size += next.entries().size();
+            }
+
+            if (!batch.isEmpty()) {
+                commitToWal(batch);
+            }
+
+            if (!unapplied.isEmpty()) {
+                applyUnapplied(false);
+            }
+        } catch (Exception e) {
+            // Entries stay in the WAL and in unapplied; the next cycle retries them
+            log.error("Stock ledger group commit to database failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    // Empties unapplied and the WAL once every entry is in Postgres or quarantined; throws otherwise
+    private void applyUnapplied(boolean quarantineOnRejection) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> ledgerRepository.apply(unapplied));
+        } catch (DataIntegrityViolationException e) {
+            if (!quarantineOnRejection && ++rejectedApplies < maxApplyAttempts) {
+                throw e;
+            }
+            log.error("Postgres rejected {} ledger entries {} times, applying them one by one: {}",
+                    unapplied.size(), rejectedApplies, e.getMessage());
+            quarantineRejected();
+        }
+
+        rejectedApplies = 0;
+        unapplied.clear();
+        unappliedCount.set(0);
+        wal.truncate();
+    }
+
+    // Any failure other than a rejection aborts the pass; entries applied so far are replayed harmlessly
+    private void quarantineRejected() throws IOException {
+        List<LedgerEntry> rejected = new ArrayList<>();
+        for (LedgerEntry entry : unapplied) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> ledgerRepository.apply(List.of(entry)));
+            } catch (DataIntegrityViolationException e) {
+                log.error("Quarantining stock ledger entry {}: {}", entry.toLine(), e.getMessage());
+                rejected.add(entry);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            quarantine.append(rejected);
+            quarantined.increment(rejected.size());
+        }
+    }
+
+    private void commitToWal(List<Pending> batch) {
+        List<LedgerEntry> entries = batch.stream().flatMap(p -> p.entries().stream()).toList();
+        try {
+            wal.append(entries);
+        } catch (IOException e) {
+            log.error("Stock ledger WAL append failed for {} entries: {}", entries.size(), e.getMessage());
+            batch.forEach(p -> {
+                revert(p.entries());
+                p.durable().completeExceptionally(e);
+            });
+            return;
+        }
+
+        // Released stock becomes available only once the release is durable
+        entries.stream()
+                .filter(LedgerEntry::restoresStock)
+                .forEach(entry -> available.get(entry.productId()).addAndGet(entry.quantity()));
+
+        unapplied.addAll(entries);
+        unappliedCount.set(unapplied.size());
+        batch.forEach(p -> p.durable().complete(null));
+
+        eventPublisher.publishEvent(new StockChangedEvent(entries.stream()
+                .filter(entry -> entry.type() != LedgerEntry.Type.CONFIRM)
+                .map(LedgerEntry::productId)
+                .distinct()
+                .toList()));
+    }
+
+    // Undoes the in-memory effect of operations that never became durable
+    private void revert(List<LedgerEntry> entries) {
+        entries.forEach(entry -> {
+            switch (entry.type()) {
+                case RESERVE -> {
+                    available.get(entry.productId()).addAndGet(entry.quantity());
+                    openByOrder.computeIfPresent(entry.orderId(), (orderId, open) -> {
+                        List<LedgerEntry> remaining = open.stream()
+                                .filter(o -> !o.reservationId().equals(entry.reservationId()))
+                                .toList();
+                        return remaining.isEmpty() ? null : remaining;
+                    });
+                }
+                case CONFIRM, RELEASE, EXPIRE ->
+                        openByOrder.merge(entry.orderId(), List.of(entry.as(LedgerEntry.Type.RESERVE)), StockLedger::concat);
+            }
+        });
+    }
+
+    private static List<LedgerEntry> concat(List<LedgerEntry> a, List<LedgerEntry> b) {
+        return Stream.concat(a.stream(), b.stream()).toList();
+    }
+}
@@ -0,0 +1,2 @@
+-- Lets the expiry sweeper find due RESERVED rows without scanning settled ones.
+CREATE INDEX idx_reservations_reserved_expires_at ON reservations(expires_at) WHERE status = 'RESERVED';
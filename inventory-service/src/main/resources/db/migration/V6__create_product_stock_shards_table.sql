@@ -0,0 +1,18 @@
+-- Sharded stock for hot products. When products.sharded is set, available stock is
+-- products.stock_level (the unsharded remainder) plus the sum of the product's shards.
+ALTER TABLE products ADD COLUMN sharded BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE product_stock_shards (
+    product_id      UUID NOT NULL REFERENCES products(id),
+    shard           INTEGER NOT NULL,
+    stock_level     INTEGER NOT NULL,
+
+    version         BIGINT NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMP NOT NULL DEFAULT (NOW() AT TIME ZONE 'UTC'),
+
+    PRIMARY KEY (product_id, shard),
+    CONSTRAINT chk_shard_stock_level CHECK (stock_level >= 0)
+);
+
+-- The shard a reservation took its stock from, so a release can return it there
+ALTER TABLE reservations ADD COLUMN stock_shard INTEGER;
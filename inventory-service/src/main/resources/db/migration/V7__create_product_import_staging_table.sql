@@ -0,0 +1,13 @@
+-- Landing table for bulk catalog/restock imports: rows are COPYed in, then merged into products
+-- in seq ranges, each range deleted as it is merged. A failed merge is resumed from what is left.
+-- UNLOGGED: after a database crash the staged rows are gone and the feed must be imported again.
+CREATE UNLOGGED TABLE product_import_staging (
+    import_id       UUID NOT NULL,
+    seq             BIGINT NOT NULL,
+    product_id      UUID NOT NULL,
+    sku             VARCHAR(50) NOT NULL,
+    name            VARCHAR(255) NOT NULL,
+    quantity        INTEGER NOT NULL,
+
+    PRIMARY KEY (import_id, seq)
+);
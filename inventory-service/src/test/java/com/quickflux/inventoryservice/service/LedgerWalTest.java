@@ -0,0 +1,74 @@
+package com.quickflux.inventoryservice.service;
+
+import com.quickflux.inventoryservice.domain.LedgerEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LedgerWalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysAppendedEntriesInOrder() throws IOException {
+        Path path = dir.resolve("ledger.wal");
+        LedgerEntry reserve = entry(LedgerEntry.Type.RESERVE);
+        LedgerEntry confirm = reserve.as(LedgerEntry.Type.CONFIRM);
+        LedgerEntry other = entry(LedgerEntry.Type.RESERVE);
+
+        try (LedgerWal wal = new LedgerWal(path)) {
+            wal.append(List.of(reserve, confirm));
+            wal.append(List.of(other));
+        }
+
+        try (LedgerWal reopened = new LedgerWal(path)) {
+            assertThat(reopened.readAll()).containsExactly(reserve, confirm, other);
+        }
+    }
+
+    @Test
+    void dropsTornTailAndKeepsLaterAppendsReadable() throws IOException {
+        Path path = dir.resolve("ledger.wal");
+        LedgerEntry acknowledged = entry(LedgerEntry.Type.RESERVE);
+        try (LedgerWal wal = new LedgerWal(path)) {
+            wal.append(List.of(acknowledged));
+        }
+
+        // Crash mid-append: half a line, no newline
+        String torn = entry(LedgerEntry.Type.RESERVE).toLine();
+        Files.writeString(path, torn.substring(0, torn.length() / 2), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        LedgerEntry next = entry(LedgerEntry.Type.RELEASE);
+        try (LedgerWal wal = new LedgerWal(path)) {
+            assertThat(wal.readAll()).containsExactly(acknowledged);
+            wal.append(List.of(next));
+        }
+
+        try (LedgerWal reopened = new LedgerWal(path)) {
+            assertThat(reopened.readAll()).containsExactly(acknowledged, next);
+        }
+    }
+
+    @Test
+    void truncateEmptiesTheLog() throws IOException {
+        try (LedgerWal wal = new LedgerWal(dir.resolve("ledger.wal"))) {
+            wal.append(List.of(entry(LedgerEntry.Type.RESERVE)));
+            wal.truncate();
+
+            assertThat(wal.readAll()).isEmpty();
+        }
+    }
+
+    private static LedgerEntry entry(LedgerEntry.Type type) {
+        return new LedgerEntry(type, UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 3, 1_000L, 901_000L);
+    }
+}
@@ -0,0 +1,190 @@
+package com.quickflux.inventoryservice.service;
+
+import com.quickflux.inventoryservice.domain.LedgerEntry;
+import com.quickflux.inventoryservice.domain.ReservationStatus;
+import com.quickflux.inventoryservice.repository.LedgerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockLedgerTest {
+
+    private static final int MAX_APPLY_ATTEMPTS = 3;
+
+    @TempDir
+    Path dir;
+
+    private final LedgerRepository ledgerRepository = mock(LedgerRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID productId = UUID.randomUUID();
+
+    private StockLedger ledger;
+
+    @BeforeEach
+    void start() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(ledgerRepository.loadStockLevels()).thenReturn(Map.of(productId, 10));
+
+        ledger = new StockLedger(ledgerRepository, transactionTemplate, event -> {}, meterRegistry);
+        ReflectionTestUtils.setField(ledger, "walPath", wal().toString());
+        // Group commits are driven by the tests
+        ReflectionTestUtils.setField(ledger, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(ledger, "maxBatch", 5000);
+        ReflectionTestUtils.setField(ledger, "ackTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(ledger, "maxApplyAttempts", MAX_APPLY_ATTEMPTS);
+        ledger.start();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        ledger.stop();
+    }
+
+    @Test
+    void rejectedEntriesAreQuarantinedAfterBoundedRetries() throws IOException {
+        UUID good = UUID.randomUUID();
+        UUID bad = UUID.randomUUID();
+        doAnswer(invocation -> {
+            List<LedgerEntry> entries = invocation.getArgument(0);
+            if (entries.stream().anyMatch(entry -> entry.orderId().equals(bad))) {
+                throw new DataIntegrityViolationException("violates check constraint");
+            }
+            return null;
+        }).when(ledgerRepository).apply(anyList());
+
+        ledger.reserveAsync(good, Map.of(productId, 1));
+        ledger.reserveAsync(bad, Map.of(productId, 2));
+
+        for (int i = 1; i < MAX_APPLY_ATTEMPTS; i++) {
+            ledger.groupCommit();
+            assertThat(unapplied()).isEqualTo(2);
+            assertThat(quarantined()).isZero();
+        }
+        ledger.groupCommit();
+
+        assertThat(unapplied()).isZero();
+        assertThat(quarantined()).isEqualTo(1);
+        assertThat(readAll(wal())).isEmpty();
+        assertThat(readAll(quarantineFile())).singleElement()
+                .satisfies(entry -> assertThat(entry.orderId()).isEqualTo(bad));
+    }
+
+    @Test
+    void outagesAreRetriedWithoutQuarantine() throws IOException {
+        AtomicBoolean down = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (down.get()) {
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            return null;
+        }).when(ledgerRepository).apply(anyList());
+
+        ledger.reserveAsync(UUID.randomUUID(), Map.of(productId, 1));
+        for (int i = 0; i < MAX_APPLY_ATTEMPTS * 2; i++) {
+            ledger.groupCommit();
+        }
+
+        assertThat(unapplied()).isEqualTo(1);
+        assertThat(quarantined()).isZero();
+        assertThat(readAll(wal())).hasSize(1);
+
+        down.set(false);
+        ledger.groupCommit();
+
+        assertThat(unapplied()).isZero();
+        assertThat(readAll(wal())).isEmpty();
+    }
+
+    @Test
+    void duplicateConfirmIsANoOp() {
+        UUID orderId = UUID.randomUUID();
+        durably(() -> ledger.reserve(orderId, Map.of(productId, 1)));
+        durably(() -> ledger.confirm(orderId));
+
+        durably(() -> ledger.confirm(orderId));
+
+        assertThat(ledger.available(productId)).contains(9);
+    }
+
+    @Test
+    void confirmAfterReleaseIsRejected() {
+        UUID orderId = UUID.randomUUID();
+        durably(() -> ledger.reserve(orderId, Map.of(productId, 1)));
+        durably(() -> ledger.release(orderId));
+
+        assertThatThrownBy(() -> ledger.confirm(orderId)).isInstanceOf(IllegalStateException.class);
+        assertThat(ledger.available(productId)).contains(10);
+    }
+
+    @Test
+    void confirmOfOrderClosedBeforeStartupAsksPostgres() {
+        UUID confirmed = UUID.randomUUID();
+        UUID expired = UUID.randomUUID();
+        when(ledgerRepository.findReservationStatuses(confirmed)).thenReturn(List.of(ReservationStatus.CONFIRMED));
+        when(ledgerRepository.findReservationStatuses(expired)).thenReturn(List.of(ReservationStatus.EXPIRED));
+
+        ledger.confirm(confirmed);
+        assertThatThrownBy(() -> ledger.confirm(expired)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> ledger.confirm(UUID.randomUUID())).isInstanceOf(ReservationNotFoundException.class);
+    }
+
+    // Runs a blocking ledger call while driving group commits until it is acknowledged
+    private void durably(Runnable call) {
+        CompletableFuture<Void> done = CompletableFuture.runAsync(call);
+        while (!done.isDone()) {
+            ledger.groupCommit();
+            Thread.onSpinWait();
+        }
+        done.join();
+    }
+
+    private Path wal() {
+        return dir.resolve("ledger.wal");
+    }
+
+    private Path quarantineFile() {
+        return dir.resolve("ledger.wal.quarantine");
+    }
+
+    private static List<LedgerEntry> readAll(Path path) throws IOException {
+        try (LedgerWal wal = new LedgerWal(path)) {
+            return wal.readAll();
+        }
+    }
+
+    private double unapplied() {
+        return meterRegistry.get("inventory.ledger.unapplied").gauge().value();
+    }
+
+    private double quarantined() {
+        return meterRegistry.get("inventory.ledger.quarantined").counter().count();
+    }
+}
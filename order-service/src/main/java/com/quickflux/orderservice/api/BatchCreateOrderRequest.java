@@ -0,0 +1,12 @@
+package com.quickflux.orderservice.api;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record BatchCreateOrderRequest(
+        @NotEmpty(message = "At least one order is required")
+        @Size(max = 200, message = "A batch can have at most 200 orders")
+        List<@Valid CreateOrderRequest> orders
+) {}
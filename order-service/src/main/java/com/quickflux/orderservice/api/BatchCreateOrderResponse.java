@@ -0,0 +1,9 @@
+package com.quickflux.orderservice.api;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchCreateOrderResponse(int accepted, int rejected, List<Result> results) {
+
+    public record Result(int index, UUID orderId, String status, String message) {}
+}
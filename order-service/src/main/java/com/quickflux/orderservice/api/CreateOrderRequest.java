@@ -1,21 +1,54 @@
 package com.quickflux.orderservice.api;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Either a single product (productId, quantity, unitPrice) or a cart of items.
+ */
 @Data
 public class CreateOrderRequest {
 
-    @NotNull(message = "Product ID is required")
     private UUID productId;
 
-    @NotNull(message = "Quantity is required")
     @Min(value = 1, message = "Quantity must be at least 1")
     private Integer quantity;
 
-    @NotNull(message = "Unit price is required")
     @DecimalMin(value = "0.01", message = "Unit price must be positive")
     private BigDecimal unitPrice;
+
+    @Valid
+    @Size(max = 100, message = "An order can have at most 100 items")
+    private List<OrderLine> items;
+
+    @AssertTrue(message = "Either productId, quantity and unitPrice or a non-empty items list is required")
+    public boolean isLinesSpecified() {
+        boolean single = productId != null && quantity != null && unitPrice != null;
+        boolean multi = items != null && !items.isEmpty();
+        return single != multi;
+    }
+
+    public List<OrderLine> lines() {
+        if (items != null && !items.isEmpty()) {
+            return items;
+        }
+        return List.of(new OrderLine(productId, quantity, unitPrice));
+    }
+
+    public record OrderLine(
+            @NotNull(message = "Product ID is required")
+            UUID productId,
+
+            @NotNull(message = "Quantity is required")
+            @Min(value = 1, message = "Quantity must be at least 1")
+            Integer quantity,
+
+            @NotNull(message = "Unit price is required")
+            @DecimalMin(value = "0.01", message = "Unit price must be positive")
+            BigDecimal unitPrice
+    ) {}
 }
@@ -1,19 +1,34 @@
 package com.quickflux.orderservice.api;
 
-import com.quickflux.orderservice.domain.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.quickflux.orderservice.repository.OrderRepository;
+import com.quickflux.orderservice.service.BatchOrderResult;
+import com.quickflux.orderservice.service.BatchOrderService;
+import com.quickflux.orderservice.service.IdempotencyKeyConflictException;
+import com.quickflux.orderservice.service.IdempotencyKeyMismatchException;
+import com.quickflux.orderservice.service.IdempotencyKeyService;
+import com.quickflux.orderservice.service.OrderHistoryService;
+import com.quickflux.orderservice.service.OrderIntakeRejectedException;
 import com.quickflux.orderservice.service.OrderNotFoundException;
+import com.quickflux.orderservice.service.OrderReadCache;
 import com.quickflux.orderservice.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 @Slf4j
 @RestController
@@ -21,21 +36,78 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final OrderService orderService;
 
+    private final BatchOrderService batchOrderService;
+
     private final OrderRepository orderRepository;
 
+    private final OrderHistoryService orderHistoryService;
+
+    private final OrderReadCache orderReadCache;
+
+    private final IdempotencyKeyService idempotencyKeyService;
+
+    private final ObjectMapper objectMapper;
+
     @PostMapping
     public ResponseEntity<CreateOrderResponse> createOrder(
             @RequestHeader("X-User-Id") UUID userId,  // From API Gateway
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody CreateOrderRequest request) {
 
         log.info("Received create order request from user: {}", userId);
 
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 255)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1 to 255 characters");
+        }
+
+        CreateOrderResponse response;
+        try {
+            response = idempotencyKey == null
+                    ? submitOrder(request, userId)
+                    : idempotencyKeyService.execute(userId, idempotencyKey, request, () -> submitOrder(request, userId));
+        } catch (OrderIntakeRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new CreateOrderResponse(null, e.getMessage()));
+        } catch (IdempotencyKeyConflictException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IdempotencyKeyMismatchException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+        }
+
+        return ResponseEntity.accepted().body(response);
+    }
+
+    private CreateOrderResponse submitOrder(CreateOrderRequest request, UUID userId) {
         UUID orderId = orderService.createOrder(request, userId);
+        return new CreateOrderResponse(orderId, "Order is being processed");
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreateOrderResponse> createOrders(
+            @RequestHeader("X-User-Id") UUID userId,
+            @Valid @RequestBody BatchCreateOrderRequest request) {
+
+        log.info("Received batch create order request from user {} with {} orders", userId, request.orders().size());
+
+        List<BatchOrderResult> results = batchOrderService.createOrders(request.orders(), userId);
+
+        List<BatchCreateOrderResponse.Result> body = IntStream.range(0, results.size())
+                .mapToObj(i -> new BatchCreateOrderResponse.Result(
+                        i,
+                        results.get(i).orderId(),
+                        results.get(i).accepted() ? "ACCEPTED" : "REJECTED",
+                        results.get(i).accepted() ? "Order is being processed" : results.get(i).error()))
+                .toList();
+        int accepted = (int) results.stream().filter(BatchOrderResult::accepted).count();
 
         return ResponseEntity.accepted()
-                .body(new CreateOrderResponse(orderId, "Order is being processed"));
+                .body(new BatchCreateOrderResponse(accepted, results.size() - accepted, body));
     }
 
     @GetMapping("/{orderId}")
@@ -45,53 +117,61 @@ public class OrderController {
 
         log.info("Received get order request for {} from user {}", orderId, userId);
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+        OrderResponse response = orderReadCache.get(orderId,
+                id -> orderRepository.findWithItemsById(id).map(OrderResponse::from).orElse(null));
 
         // Security: Verify order belongs to requesting user
-        if (!order.getUserId().equals(userId)) {
+        if (response == null || !response.userId().equals(userId)) {
             throw new OrderNotFoundException("Order not found: " + orderId);
         }
 
-        OrderResponse response = new OrderResponse(
-                order.getId(),
-                order.getUserId(),
-                order.getProductId(),
-                order.getQuantity(),
-                order.getUnitPrice(),
-                order.getTotalAmount(),
-                order.getStatus().toString(),
-                order.getReservationId(),
-                order.getPaymentPreauthId(),
-                order.getCreatedAt()
-        );
-
         return ResponseEntity.ok(response);
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getAllOrders(
-            @RequestHeader("X-User-Id") UUID userId) {
+    public ResponseEntity<OrderPage> getAllOrders(
+            @RequestHeader("X-User-Id") UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
 
         log.info("Received get all orders request from user {}", userId);
 
-        List<Order> orders = orderRepository.findByUserId(userId);
-
-        List<OrderResponse> responses = orders.stream()
-                .map(order -> new OrderResponse(
-                        order.getId(),
-                        order.getUserId(),
-                        order.getProductId(),
-                        order.getQuantity(),
-                        order.getUnitPrice(),
-                        order.getTotalAmount(),
-                        order.getStatus().toString(),
-                        order.getReservationId(),
-                        order.getPaymentPreauthId(),
-                        order.getCreatedAt()
-                ))
-                .toList();
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        OrderCursor after;
+        try {
+            after = cursor != null ? OrderCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        return ResponseEntity.ok(orderHistoryService.findPage(userId, after, limit));
+    }
+
+    // GET /api/orders?format=ndjson - whole history as newline-delimited JSON, one OrderSummary per line
+    @GetMapping(params = "format=ndjson", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders(
+            @RequestHeader("X-User-Id") UUID userId) {
 
-        return ResponseEntity.ok(responses);
+        log.info("Received stream orders request from user {}", userId);
+
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writerFor(OrderSummary.class);
+            orderHistoryService.streamSummaries(userId, summary -> {
+                try {
+                    out.write(writer.writeValueAsBytes(summary));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.quickflux.orderservice.api;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record OrderPage(List<OrderResponse> orders, String nextCursor) {}
@@ -1,7 +1,9 @@
 package com.quickflux.orderservice.api;
 
+import com.quickflux.orderservice.domain.Order;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public record OrderResponse(
@@ -14,5 +16,27 @@ public record OrderResponse(
         String status,
         UUID reservationId,
         UUID paymentPreauthId,
-        Instant createdAt
-) {}
\ No newline at end of file
+        Instant createdAt,
+        List<Item> items
+) {
+
+    public record Item(UUID productId, int quantity, BigDecimal unitPrice) {}
+
+    public static OrderResponse from(Order order) {
+        return new OrderResponse(
+                order.getId(),
+                order.getUserId(),
+                order.getProductId(),
+                order.getQuantity(),
+                order.getUnitPrice(),
+                order.getTotalAmount(),
+                order.getStatus().toString(),
+                order.getReservationId(),
+                order.getPaymentPreauthId(),
+                order.getCreatedAt(),
+                order.getItems().stream()
+                        .map(item -> new Item(item.getProductId(), item.getQuantity(), item.getPriceAtOrder()))
+                        .toList()
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package com.quickflux.orderservice.api;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Flat, read-only view of an order row for streamed history
+public record OrderSummary(
+        UUID orderId,
+        UUID productId,
+        int quantity,
+        BigDecimal totalAmount,
+        String status,
+        UUID reservationId,
+        UUID paymentPreauthId,
+        Instant createdAt
+) {}
@@ -0,0 +1,50 @@
+package com.quickflux.orderservice.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RestTemplate bound to one downstream service.
+ * Requests are spread round-robin over the configured instances, and URIs are
+ * built and encoded by UriComponentsBuilder rather than string concatenation.
+ */
+@Slf4j
+public class InternalHttpClient {
+
+    private final String name;
+    private final RestTemplate restTemplate;
+    private final List<URI> baseUrls;
+    private final AtomicInteger nextInstance = new AtomicInteger();
+
+    public InternalHttpClient(String name, RestTemplate restTemplate, List<URI> baseUrls) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("No base URLs configured for downstream " + name);
+        }
+        this.name = name;
+        this.restTemplate = restTemplate;
+        this.baseUrls = List.copyOf(baseUrls);
+    }
+
+    public URI uri(String path, Map<String, ?> queryParams) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUri(nextBaseUrl()).path(path);
+        queryParams.forEach((param, value) -> builder.queryParam(param, value));
+        return builder.encode().build().toUri();
+    }
+
+    public <T> T post(URI uri, Object body, Class<T> responseType) {
+        log.debug("POST {} ({})", uri, name);
+        return restTemplate.postForObject(uri, body, responseType);
+    }
+
+    private URI nextBaseUrl() {
+        if (baseUrls.size() == 1) {
+            return baseUrls.get(0);
+        }
+        return baseUrls.get(Math.floorMod(nextInstance.getAndIncrement(), baseUrls.size()));
+    }
+}
@@ -1,36 +1,130 @@
 package com.quickflux.orderservice.client;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class InventoryClient {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private static final String INVENTORY_SERVICE_URL = "http://localhost:8083";
+    @Qualifier("inventoryHttpClient")
+    private final InternalHttpClient httpClient;
+
+    // Coalesce concurrent single-line reservations into /reserve/batch calls
+    @Value("${quickflux.inventory-client.batching.enabled:false}")
+    private boolean batchingEnabled;
+
+    @Value("${quickflux.inventory-client.batching.window-ms:2}")
+    private long batchWindowMs;
+
+    @Value("${quickflux.inventory-client.batching.max-lines:500}")
+    private int batchMaxLines;
+
+    @Value("${quickflux.inventory-client.batching.queue-capacity:10000}")
+    private int batchQueueCapacity;
+
+    // How long a caller waits for its batched line before giving up
+    @Value("${quickflux.inventory-client.batching.timeout-ms:2000}")
+    private long batchTimeoutMs;
+
+    private ReservationBatcher batcher;
+
+    @PostConstruct
+    void startBatcher() {
+        if (batchingEnabled) {
+            batcher = new ReservationBatcher(this::reserveBatch, this::releaseStock,
+                    batchWindowMs, batchMaxLines, batchQueueCapacity);
+            log.info("Inventory reservations are micro-batched ({} ms window, up to {} lines)", batchWindowMs, batchMaxLines);
+        }
+    }
+
+    @PreDestroy
+    void stopBatcher() {
+        if (batcher != null) {
+            batcher.stop();
+        }
+    }
 
     public UUID reserveStock(UUID orderId, UUID productId, int quantity) {
-        String url = INVENTORY_SERVICE_URL + "/api/inventory/reserve" +
-                "?orderId=" + orderId +
-                "&productId=" + productId +
-                "&quantity=" + quantity;
+        if (batcher != null) {
+            try {
+                return batcher.submit(new BatchReserveLine(orderId, productId, quantity))
+                        .orTimeout(batchTimeoutMs, TimeUnit.MILLISECONDS)
+                        .join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
 
-        log.info("Calling Inventory Service: {}", url);
+        URI uri = httpClient.uri("/api/inventory/reserve", Map.of(
+                "orderId", orderId,
+                "productId", productId,
+                "quantity", quantity));
 
-        ReserveResponse response = restTemplate.postForObject(url, null, ReserveResponse.class);
+        log.info("Calling Inventory Service: {}", uri);
+
+        ReserveResponse response = httpClient.post(uri, null, ReserveResponse.class);
         return response.reservationId();
     }
 
+    /**
+     * Reserves every line of an order in one all-or-nothing call.
+     * Returns one reservation id per line; inventory confirms and releases them all by order id.
+     */
+    public List<UUID> reserveStock(UUID orderId, List<ReserveLine> lines) {
+        URI uri = httpClient.uri("/api/inventory/reservations", Map.of());
+
+        log.info("Calling Inventory Service: {} for order {} ({} lines)", uri, orderId, lines.size());
+
+        ReserveLinesResponse response = httpClient.post(uri, new ReserveLinesRequest(orderId, lines), ReserveLinesResponse.class);
+        return response.reservationIds();
+    }
+
+    /**
+     * Reserves lines for many orders in one call. Inventory reserves each order all-or-nothing,
+     * so the results say per line (and therefore per order) whether it was reserved.
+     */
+    public List<BatchReserveResult> reserveBatch(List<BatchReserveLine> lines) {
+        URI uri = httpClient.uri("/api/inventory/reserve/batch", Map.of());
+
+        log.info("Calling Inventory Service: {} ({} lines)", uri, lines.size());
+
+        BatchReserveResponse response = httpClient.post(uri, new BatchReserveRequest(lines), BatchReserveResponse.class);
+        return response.results();
+    }
+
     public void releaseStock(UUID orderId) {
-        String url = INVENTORY_SERVICE_URL + "/api/inventory/release?orderId=" + orderId;
-        log.info("Calling Inventory Service to release stock: {}", url);
-        restTemplate.postForObject(url, null, Void.class);
+        URI uri = httpClient.uri("/api/inventory/release", Map.of("orderId", orderId));
+        log.info("Calling Inventory Service to release stock: {}", uri);
+        httpClient.post(uri, null, Void.class);
     }
 
     public record ReserveResponse(UUID reservationId) {}
-}
\ No newline at end of file
+
+    public record ReserveLine(UUID productId, int quantity) {}
+
+    public record ReserveLinesRequest(UUID orderId, List<ReserveLine> lines) {}
+
+    public record ReserveLinesResponse(List<UUID> reservationIds) {}
+
+    public record BatchReserveLine(UUID orderId, UUID productId, int quantity) {}
+
+    public record BatchReserveRequest(List<BatchReserveLine> lines) {}
+
+    public record BatchReserveResult(UUID orderId, UUID productId, int quantity,
+                                     boolean reserved, UUID reservationId, String error) {}
+
+    public record BatchReserveResponse(List<BatchReserveResult> results) {}
+}
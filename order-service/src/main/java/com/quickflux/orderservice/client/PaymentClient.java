@@ -2,9 +2,11 @@ package com.quickflux.orderservice.client;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -12,21 +14,21 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class PaymentClient {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private static final String PAYMENT_SERVICE_URL = "http://localhost:8082";
+    @Qualifier("paymentHttpClient")
+    private final InternalHttpClient httpClient;
 
     public PreAuthResult preAuthorizePayment(UUID orderId, BigDecimal amount) {
-        String url = PAYMENT_SERVICE_URL + "/api/payments/preauth?orderId=" + orderId + "&amount=" + amount;
-        log.info("Calling Payment Service: {}", url);
+        URI uri = httpClient.uri("/api/payments/preauth", Map.of("orderId", orderId, "amount", amount));
+        log.info("Calling Payment Service: {}", uri);
 
-        return restTemplate.postForObject(url, null, PreAuthResult.class);
+        return httpClient.post(uri, null, PreAuthResult.class);
     }
 
     public void voidPreAuth(UUID preauthId) {
-        String url = PAYMENT_SERVICE_URL + "/api/payments/void?preauthId=" + preauthId;
-        log.info("Calling Payment Service to void pre-auth: {}", url);
-        restTemplate.postForObject(url, null, Void.class);
+        URI uri = httpClient.uri("/api/payments/void", Map.of("preauthId", preauthId));
+        log.info("Calling Payment Service to void pre-auth: {}", uri);
+        httpClient.post(uri, null, Void.class);
     }
 
     public record PreAuthResult(UUID preauthId, String gatewayReferenceId, String status) {}
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.quickflux.orderservice.client;
+
+import lombok.extern.slf4j.Slf4j;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-line reservations into calls to the batch endpoint.
+ * The first waiting line opens a window; everything that arrives within it (up to maxLines)
+ * goes out as one request. Batches are sent one at a time, so while a call is in flight the
+ * next batch keeps filling: the busier the service, the larger the batches.
+ *
+ * The queue is bounded: when inventory falls behind, new lines are rejected instead of piling up.
+ * A caller may stop waiting (its future completed by a timeout); its line is then dropped if not
+ * yet sent, or its reservation released if the batch was already in flight.
+ */
+@Slf4j
+class ReservationBatcher {
+
+    private record Pending(InventoryClient.BatchReserveLine line, CompletableFuture<UUID> result) {}
+
+    private final BlockingQueue<Pending> queue;
+    private final Function<List<InventoryClient.BatchReserveLine>, List<InventoryClient.BatchReserveResult>> sender;
+    private final Consumer<UUID> releaser;
+    private final long windowNanos;
+    private final int maxLines;
+    private final Thread worker;
+    // Releases run off the worker so they never delay the next batch
+    private final ExecutorService releases = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "inventory-reserve-release");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    ReservationBatcher(Function<List<InventoryClient.BatchReserveLine>, List<InventoryClient.BatchReserveResult>> sender,
+                       Consumer<UUID> releaser, long windowMs, int maxLines, int queueCapacity) {
+        this.sender = sender;
+        this.releaser = releaser;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxLines = maxLines;
+        this.worker = new Thread(this::run, "inventory-reserve-batcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    CompletableFuture<UUID> submit(InventoryClient.BatchReserveLine line) {
+        CompletableFuture<UUID> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new IllegalStateException("Reservation batcher is stopped"));
+            return result;
+        }
+        if (!queue.offer(new Pending(line, result))) {
+            result.completeExceptionally(new RejectedExecutionException("Reservation batcher queue is full"));
+        }
+        return result;
+    }
+
+    void stop() {
+        running = false;
+        worker.interrupt();
+        releases.shutdown();
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(pending -> pending.result().completeExceptionally(new IllegalStateException("Reservation batcher is stopped")));
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<Pending> batch = new ArrayList<>();
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxLines) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        // Callers that timed out while queued are no longer waiting
+        batch.removeIf(pending -> pending.result().isDone());
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<InventoryClient.BatchReserveResult> results = sender.apply(batch.stream().map(Pending::line).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                InventoryClient.BatchReserveResult result = results.get(i);
+                if (result.reserved()) {
+                    if (!batch.get(i).result().complete(result.reservationId())) {
+                        releaseAbandoned(result.orderId());
+                    }
+                } else {
+                    batch.get(i).result().completeExceptionally(new StockReservationRejectedException(result.error()));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Batched reservation of {} line(s) failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private void releaseAbandoned(UUID orderId) {
+        log.warn("Caller for order {} stopped waiting on its reservation, releasing it", orderId);
+        try {
+            releases.execute(() -> {
+                try {
+                    releaser.accept(orderId);
+                } catch (Exception e) {
+                    log.error("Failed to release abandoned reservation for order {}: {}", orderId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Cannot release abandoned reservation for order {}, batcher is stopping", orderId);
+        }
+    }
+}
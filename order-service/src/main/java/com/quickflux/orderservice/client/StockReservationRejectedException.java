@@ -0,0 +1,7 @@
+package com.quickflux.orderservice.client;
+
+public class StockReservationRejectedException extends RuntimeException {
+    public StockReservationRejectedException(String message) {
+        super(message);
+    }
+}
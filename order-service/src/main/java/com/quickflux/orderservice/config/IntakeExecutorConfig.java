@@ -0,0 +1,56 @@
+package com.quickflux.orderservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor for asynchronous order intake (quickflux.intake.mode=async). Phase 1 calls run on
+ * phase1Executor without a thread waiting on them; this pool only runs the short step after
+ * they complete (the PENDING transaction, or the cancellation on failure). Backpressure for new
+ * orders is the Phase 1 pool: when it rejects, the order is cancelled and the client gets 503.
+ *
+ * Published as executor.* metrics tagged name=intake.
+ */
+@Slf4j
+@Configuration
+public class IntakeExecutorConfig {
+
+    @Value("${quickflux.intake.pool-size:32}")
+    private int poolSize;
+
+    @Value("${quickflux.intake.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService intakeExecutor(MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("intake.executor.rejected")
+                .description("Orders rejected because the intake pipeline was full")
+                .register(meterRegistry);
+
+        log.info("Intake executor: pool={} queue={}", poolSize, queueCapacity);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("intake-"),
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Order intake saturated");
+                });
+
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "intake");
+    }
+}
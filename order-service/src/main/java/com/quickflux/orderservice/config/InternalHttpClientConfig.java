@@ -0,0 +1,133 @@
+package com.quickflux.orderservice.config;
+
+import com.quickflux.orderservice.client.InternalHttpClient;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared HTTP client for calls to other QuickFlux services.
+ *
+ * HTTP/1.1 downstreams share one pooled Apache HttpClient with keep-alive; connect and read
+ * timeouts are resolved per downstream from the route's target host. Downstreams with
+ * http2=true use the JDK HttpClient instead, which multiplexes requests over one connection.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(InternalHttpClientProperties.class)
+public class InternalHttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager internalConnectionManager(InternalHttpClientProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .build();
+
+        Map<HttpHost, ConnectionConfig> configByHost = new HashMap<>();
+        properties.getDownstreams().values().forEach(downstream -> {
+            ConnectionConfig config = ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.of(downstream.getConnectTimeout()))
+                    .setSocketTimeout(Timeout.of(downstream.getReadTimeout()))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                    .build();
+            baseUrls(downstream).forEach(uri -> configByHost.put(toHttpHost(uri), config));
+        });
+
+        ConnectionConfig defaultConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofSeconds(1))
+                .setSocketTimeout(Timeout.ofSeconds(5))
+                .build();
+        connectionManager.setConnectionConfigResolver(
+                route -> configByHost.getOrDefault(route.getTargetHost(), defaultConfig));
+
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient internalApacheHttpClient(PoolingHttpClientConnectionManager internalConnectionManager,
+                                                        InternalHttpClientProperties properties) {
+        TimeValue keepAlive = TimeValue.of(properties.getKeepAlive());
+
+        return HttpClients.custom()
+                .setConnectionManager(internalConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictIdleConnections(keepAlive)
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @Bean
+    public InternalHttpClient inventoryHttpClient(InternalHttpClientProperties properties,
+                                                  CloseableHttpClient internalApacheHttpClient) {
+        return createClient("inventory", properties, internalApacheHttpClient);
+    }
+
+    @Bean
+    public InternalHttpClient paymentHttpClient(InternalHttpClientProperties properties,
+                                                CloseableHttpClient internalApacheHttpClient) {
+        return createClient("payment", properties, internalApacheHttpClient);
+    }
+
+    private InternalHttpClient createClient(String name,
+                                            InternalHttpClientProperties properties,
+                                            CloseableHttpClient apacheHttpClient) {
+        InternalHttpClientProperties.Downstream downstream = properties.getDownstreams().get(name);
+        if (downstream == null) {
+            throw new IllegalStateException("Missing quickflux.http.downstreams." + name + " configuration");
+        }
+
+        ClientHttpRequestFactory requestFactory = downstream.isHttp2()
+                ? http2RequestFactory(downstream)
+                : new HttpComponentsClientHttpRequestFactory(apacheHttpClient);
+
+        log.info("Internal HTTP client '{}': instances={} connectTimeout={} readTimeout={} http2={}",
+                name, downstream.getBaseUrls(), downstream.getConnectTimeout(),
+                downstream.getReadTimeout(), downstream.isHttp2());
+
+        return new InternalHttpClient(name, new RestTemplate(requestFactory), baseUrls(downstream));
+    }
+
+    private ClientHttpRequestFactory http2RequestFactory(InternalHttpClientProperties.Downstream downstream) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(downstream.getConnectTimeout())
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(downstream.getReadTimeout());
+        return requestFactory;
+    }
+
+    private static List<URI> baseUrls(InternalHttpClientProperties.Downstream downstream) {
+        return downstream.getBaseUrls().stream().map(URI::create).toList();
+    }
+
+    // Routes carry the resolved port, so default ports must be made explicit to match them
+    private static HttpHost toHttpHost(URI uri) {
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+        return new HttpHost(uri.getScheme(), uri.getHost(), port);
+    }
+}
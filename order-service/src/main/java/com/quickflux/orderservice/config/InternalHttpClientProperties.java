@@ -0,0 +1,34 @@
+package com.quickflux.orderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "quickflux.http")
+public class InternalHttpClientProperties {
+
+    // Shared connection pool
+    private int maxConnections = 200;
+    private int maxConnectionsPerRoute = 50;
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration connectionRequestTimeout = Duration.ofMillis(500);
+
+    // Keyed by downstream name, e.g. "inventory", "payment"
+    private Map<String, Downstream> downstreams = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Downstream {
+        private List<String> baseUrls = new ArrayList<>();
+        private Duration connectTimeout = Duration.ofMillis(500);
+        private Duration readTimeout = Duration.ofSeconds(2);
+        private boolean http2 = false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.quickflux.orderservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor for the Phase 1 fan-out (reserve stock + pre-authorize payment).
+ * Both calls block on HTTP, so they must not run on the common ForkJoinPool.
+ *
+ * Modes:
+ *  - bounded: named platform pool with a bounded queue; excess work is rejected
+ *  - virtual: one virtual thread per call (needs a JDK 21+ runtime, falls back to bounded otherwise)
+ *
+ * Pool saturation and queue wait are published as executor.* metrics tagged name=phase1
+ * (executor.idle is the time a call spent queued).
+ */
+@Slf4j
+@Configuration
+public class Phase1ExecutorConfig {
+
+    @Value("${quickflux.phase1.mode:bounded}")
+    private String mode;
+
+    @Value("${quickflux.phase1.core-pool-size:16}")
+    private int corePoolSize;
+
+    @Value("${quickflux.phase1.max-pool-size:64}")
+    private int maxPoolSize;
+
+    @Value("${quickflux.phase1.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${quickflux.phase1.keep-alive-seconds:60}")
+    private long keepAliveSeconds;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService phase1Executor(MeterRegistry meterRegistry) {
+        ExecutorService executor = null;
+        if ("virtual".equalsIgnoreCase(mode)) {
+            executor = virtualThreadExecutor();
+        }
+        if (executor == null) {
+            executor = boundedExecutor(meterRegistry);
+        }
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "phase1");
+    }
+
+    private ExecutorService boundedExecutor(MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("phase1.executor.rejected")
+                .description("Phase 1 calls rejected because the pool and its queue were full")
+                .register(meterRegistry);
+
+        log.info("Phase 1 executor: bounded pool core={} max={} queue={}", corePoolSize, maxPoolSize, queueCapacity);
+
+        return new ThreadPoolExecutor(
+                corePoolSize,
+                maxPoolSize,
+                keepAliveSeconds, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("phase1-"),
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Phase 1 executor saturated");
+                });
+    }
+
+    private ExecutorService virtualThreadExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("Phase 1 executor: virtual thread per call");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on Java {}, using bounded pool for Phase 1",
+                    Runtime.version().feature());
+            return null;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
@@ -22,13 +24,16 @@ public class Order {
     @Column(nullable = false, columnDefinition = "uuid")
     private UUID userId;
 
-    @Column(nullable = false, columnDefinition = "uuid")
+    // Only set for single-line orders
+    @Column(columnDefinition = "uuid")
     private UUID productId;
 
+    // Total units across all lines
     @Column(nullable = false)
     private Integer quantity;
 
-    @Column(nullable = false, precision = 10, scale = 2)
+    // Only set for single-line orders
+    @Column(precision = 10, scale = 2)
     private BigDecimal unitPrice;
 
     @Column(nullable = false, precision = 10, scale = 2)
@@ -50,6 +55,19 @@ public class Order {
     @Version
     private Long version;
 
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
+    private List<OrderItem> items = new ArrayList<>();
+
+    public void addItem(UUID productId, int quantity, BigDecimal priceAtOrder) {
+        items.add(OrderItem.builder()
+                .order(this)
+                .productId(productId)
+                .quantity(quantity)
+                .priceAtOrder(priceAtOrder)
+                .build());
+    }
+
     // State transitions
     public void markAsPending(UUID reservationId, UUID paymentPreauthId) {
         if (this.status != OrderStatus.CREATED) {
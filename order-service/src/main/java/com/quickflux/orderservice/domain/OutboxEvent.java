@@ -0,0 +1,43 @@
+package com.quickflux.orderservice.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Event waiting to be relayed to Kafka.
+ * Written in the same transaction as the order state change it describes,
+ * deleted by the relay once the broker has acknowledged it.
+ */
+@Entity
+@Table(name = "order_outbox")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, columnDefinition = "uuid")
+    private UUID aggregateId;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    @Column(nullable = false, length = 100)
+    private String eventKey;
+
+    // Fully qualified class of the DomainEvent, used to rebuild it for the KafkaTemplate
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
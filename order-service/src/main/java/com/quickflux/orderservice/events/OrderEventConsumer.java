@@ -2,13 +2,11 @@ package com.quickflux.orderservice.events;
 
 import com.quickflux.orderservice.service.IdempotencyService;
 import com.quickflux.orderservice.service.OrderService;
+import com.quickflux.orderservice.service.SagaJoinStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import com.quickflux.contracts.events.*;
 
 @Slf4j
@@ -19,9 +17,6 @@ public class OrderEventConsumer {
     private final OrderService orderService;
     private final IdempotencyService idempotencyService;
 
-    // Track which events we've received per order
-    private final Map<UUID, EventTracker> eventTrackers = new ConcurrentHashMap<>();
-
     @KafkaListener(topics = "payment.captured", groupId = "order-service")
     public void handlePaymentCaptured(PaymentCapturedV1 event) {
         // Check idempotency
@@ -32,11 +27,7 @@ public class OrderEventConsumer {
 
         log.info("Received PaymentCaptured event for order {}", event.orderId());
 
-        UUID orderId = event.orderId();
-        EventTracker tracker = eventTrackers.computeIfAbsent(orderId, k -> new EventTracker());
-        tracker.paymentCaptured = true;
-
-        checkAndConfirmOrder(orderId);
+        orderService.recordSagaStep(event.orderId(), SagaJoinStore.Step.PAYMENT_CAPTURED);
 
         // Mark as processed
         idempotencyService.markAsProcessed(event.eventId(), event.eventType());
@@ -52,11 +43,7 @@ public class OrderEventConsumer {
 
         log.info("Received StockConfirmed event for order {}", event.orderId());
 
-        UUID orderId = event.orderId();
-        EventTracker tracker = eventTrackers.computeIfAbsent(orderId, k -> new EventTracker());
-        tracker.stockConfirmed = true;
-
-        checkAndConfirmOrder(orderId);
+        orderService.recordSagaStep(event.orderId(), SagaJoinStore.Step.STOCK_CONFIRMED);
 
         // Mark as processed
         idempotencyService.markAsProcessed(event.eventId(), event.eventType());
@@ -82,25 +69,5 @@ public class OrderEventConsumer {
         }
 
         idempotencyService.markAsProcessed(event.eventId(), event.eventType());
-        eventTrackers.remove(event.orderId());
-    }
-
-    private void checkAndConfirmOrder(UUID orderId) {
-        EventTracker tracker = eventTrackers.get(orderId);
-
-        // Both events received?
-        if (tracker != null && tracker.paymentCaptured && tracker.stockConfirmed) {
-            log.info("Both payment and stock confirmed for order {}. Marking as CONFIRMED", orderId);
-
-            orderService.confirmOrder(orderId);
-
-            // Clean up tracker
-            eventTrackers.remove(orderId);
-        }
-    }
-
-    private static class EventTracker {
-        boolean paymentCaptured = false;
-        boolean stockConfirmed = false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.quickflux.orderservice.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickflux.contracts.events.DomainEvent;
+import com.quickflux.orderservice.domain.OutboxEvent;
+import com.quickflux.orderservice.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains order_outbox to Kafka in batches.
+ * A batch is claimed with FOR UPDATE SKIP LOCKED, sent in one go, and deleted only after
+ * every record has been acknowledged. If any send fails the transaction rolls back and the
+ * whole batch is retried on the next poll - consumers deduplicate on eventId.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${quickflux.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${quickflux.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${quickflux.outbox.poll-interval-ms:100}")
+    public void relay() {
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (Exception e) {
+            log.error("Outbox relay failed, batch will be retried: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            sends.add(kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getEventKey(), toDomainEvent(outboxEvent)));
+        }
+        kafkaTemplate.flush();
+
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Outbox batch of " + batch.size() + " was not acknowledged", e);
+        }
+
+        outboxEventRepository.deleteAllInBatch(batch);
+        log.info("Relayed {} outbox event(s) to Kafka", batch.size());
+        return batch.size();
+    }
+
+    private DomainEvent toDomainEvent(OutboxEvent outboxEvent) {
+        try {
+            Class<? extends DomainEvent> type = Class.forName(outboxEvent.getEventType()).asSubclass(DomainEvent.class);
+            return objectMapper.readValue(outboxEvent.getPayload(), type);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot deserialize outbox event " + outboxEvent.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.quickflux.orderservice.repository;
+
+import com.quickflux.orderservice.domain.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKey.Key> {
+
+    // Returns 1 if this caller now owns the key, 0 if it already existed
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, status, created_at) " +
+            "VALUES (:userId, :key, :requestHash, 'IN_PROGRESS', :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int claim(@Param("userId") UUID userId,
+              @Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") Instant now);
+
+    // Takes over an IN_PROGRESS claim whose owner died before finishing
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.createdAt = :now " +
+            "WHERE k.userId = :userId AND k.key = :key AND k.requestHash = :requestHash " +
+            "AND k.status = :status AND k.createdAt < :staleBefore")
+    int takeOver(@Param("userId") UUID userId,
+                 @Param("key") String key,
+                 @Param("requestHash") String requestHash,
+                 @Param("status") IdempotencyKey.Status status,
+                 @Param("staleBefore") Instant staleBefore,
+                 @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.status = :status, k.orderId = :orderId, " +
+            "k.responseMessage = :message, k.completedAt = :now " +
+            "WHERE k.userId = :userId AND k.key = :key")
+    int complete(@Param("userId") UUID userId,
+                 @Param("key") String key,
+                 @Param("status") IdempotencyKey.Status status,
+                 @Param("orderId") UUID orderId,
+                 @Param("message") String message,
+                 @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.userId = :userId AND k.key = :key AND k.status = :status")
+    int release(@Param("userId") UUID userId,
+                @Param("key") String key,
+                @Param("status") IdempotencyKey.Status status);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
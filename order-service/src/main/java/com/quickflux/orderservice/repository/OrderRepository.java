@@ -1,13 +1,86 @@
 package com.quickflux.orderservice.repository;
 
 import com.quickflux.orderservice.domain.Order;
+import com.quickflux.orderservice.domain.OrderStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
-    List<Order> findByUserId(UUID userId);
+    /*
+     * Keyset pagination of a user's history, newest first, on (createdAt, id).
+     * Only ids are paged; the page is then loaded with its items in one query.
+     */
+
+    @Query("SELECT o.id FROM Order o WHERE o.userId = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<UUID> findFirstPageIds(@Param("userId") UUID userId, Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.userId = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<UUID> findPageIdsAfter(@Param("userId") UUID userId,
+                                @Param("createdAt") Instant createdAt,
+                                @Param("id") UUID id,
+                                Limit limit);
+
+    @EntityGraph(attributePaths = "items")
+    List<Order> findWithItemsByIdIn(Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(UUID id);
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") UUID id);
+
+    /*
+     * Conditional status updates: the WHERE clause is the state-machine guard, so a transition
+     * is one UPDATE instead of load-modify-save. Each returns the number of rows changed (0 or 1).
+     * They bypass @Version checks, so they bump the version themselves.
+     */
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.quickflux.orderservice.domain.OrderStatus.PENDING, " +
+            "o.reservationId = :reservationId, o.paymentPreauthId = :preauthId, o.version = o.version + 1 " +
+            "WHERE o.id = :id AND o.status = com.quickflux.orderservice.domain.OrderStatus.CREATED")
+    int markAsPending(@Param("id") UUID id,
+                      @Param("reservationId") UUID reservationId,
+                      @Param("preauthId") UUID preauthId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.version = o.version + 1 WHERE o.id = :id AND o.status = :from")
+    int updateStatus(@Param("id") UUID id, @Param("from") OrderStatus from, @Param("to") OrderStatus to);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.quickflux.orderservice.domain.OrderStatus.CANCELLED, o.version = o.version + 1 " +
+            "WHERE o.id = :id AND o.status <> com.quickflux.orderservice.domain.OrderStatus.CONFIRMED")
+    int cancel(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.quickflux.orderservice.domain.OrderStatus.CANCELLED, o.version = o.version + 1 " +
+            "WHERE o.id = :id")
+    int forceCancel(@Param("id") UUID id);
+
+    /**
+     * Sets one saga flag bit if it is not set yet and returns the resulting flags.
+     * Empty when the bit was already set (duplicate event) or the order does not exist.
+     */
+    @Query(value = "UPDATE orders SET saga_flags = saga_flags | :flag " +
+            "WHERE id = :id AND (saga_flags & :flag) = 0 RETURNING saga_flags", nativeQuery = true)
+    Optional<Integer> setSagaFlag(@Param("id") UUID id, @Param("flag") int flag);
 }
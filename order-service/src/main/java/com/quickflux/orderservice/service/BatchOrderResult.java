@@ -0,0 +1,14 @@
+package com.quickflux.orderservice.service;
+
+import java.util.UUID;
+
+public record BatchOrderResult(UUID orderId, boolean accepted, String error) {
+
+    public static BatchOrderResult accepted(UUID orderId) {
+        return new BatchOrderResult(orderId, true, null);
+    }
+
+    public static BatchOrderResult rejected(UUID orderId, String error) {
+        return new BatchOrderResult(orderId, false, error);
+    }
+}
@@ -0,0 +1,217 @@
+package com.quickflux.orderservice.service;
+
+import com.quickflux.orderservice.api.CreateOrderRequest;
+import com.quickflux.orderservice.client.InventoryClient;
+import com.quickflux.orderservice.client.PaymentClient;
+import com.quickflux.orderservice.domain.Order;
+import com.quickflux.orderservice.domain.OrderItem;
+import com.quickflux.orderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk order intake. Instead of running Phase 1 once per order, a batch goes through one pipeline:
+ * one insert transaction, one grouped inventory call, pre-auths in parallel under a concurrency cap,
+ * and one transaction that moves every surviving order to PENDING and enqueues all OrderCreated
+ * events, which the outbox relay then sends in batches.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchOrderService {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final InventoryClient inventoryClient;
+    private final PaymentClient paymentClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Qualifier("phase1Executor")
+    private final ExecutorService phase1Executor;
+
+    @Value("${quickflux.phase1.deadline-ms:3000}")
+    private long phase1DeadlineMs;
+
+    @Value("${quickflux.batch.preauth-concurrency:16}")
+    private int preauthConcurrency;
+
+    /**
+     * Creates every order independently: one order failing never fails the others.
+     * Results are returned in request order.
+     */
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests, UUID userId) {
+        List<Order> orders = requests.stream()
+                .map(request -> orderService.buildOrder(request.lines(), userId))
+                .toList();
+
+        // Write 1 for the whole batch
+        transactionTemplate.executeWithoutResult(status -> orderRepository.saveAll(orders));
+        log.info("Batch of {} orders created in CREATED state for user {}", orders.size(), userId);
+
+        Map<UUID, String> failures = new HashMap<>();
+
+        Map<UUID, UUID> reservations = reserveAll(orders, failures);
+        Map<UUID, PaymentClient.PreAuthResult> preauths = preAuthorizeAll(orders, reservations, failures);
+
+        // Reserved but not pre-authorized - give the stock back
+        reservations.keySet().stream()
+                .filter(orderId -> !preauths.containsKey(orderId))
+                .forEach(this::releaseQuietly);
+
+        // Write 2 for the whole batch: PENDING + OrderCreated for survivors, CANCELLED + OrderCancelled
+        // for the rest. An order that left CREATED meanwhile is dropped alone, not the whole batch.
+        List<Order> skipped = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> orders.forEach(order -> {
+                PaymentClient.PreAuthResult preauth = preauths.get(order.getId());
+                if (preauth == null) {
+                    orderService.cancelAndPublish(order, failures.get(order.getId()));
+                    return;
+                }
+                try {
+                    orderService.markPendingAndPublish(order, reservations.get(order.getId()), preauth.preauthId());
+                } catch (IllegalStateException e) {
+                    log.warn("Skipping order {} in batch finalization: {}", order.getId(), e.getMessage());
+                    failures.put(order.getId(), "Order finalization failed: " + e.getMessage());
+                    skipped.add(order);
+                }
+            }));
+        } catch (Exception e) {
+            log.error("Batch finalization failed, compensating {} orders: {}", orders.size(), e.getMessage());
+            compensate(orders, reservations, preauths, failures, e);
+            skipped.clear();
+        }
+
+        // Guarded update matched no row, so nothing was written for these - give back what they hold
+        skipped.forEach(order -> {
+            voidQuietly(preauths.get(order.getId()).preauthId());
+            releaseQuietly(order.getId());
+        });
+
+        return orders.stream()
+                .map(order -> failures.containsKey(order.getId())
+                        ? BatchOrderResult.rejected(order.getId(), failures.get(order.getId()))
+                        : BatchOrderResult.accepted(order.getId()))
+                .toList();
+    }
+
+    // One inventory call for every line of every order
+    private Map<UUID, UUID> reserveAll(List<Order> orders, Map<UUID, String> failures) {
+        List<InventoryClient.BatchReserveLine> lines = orders.stream()
+                .flatMap(order -> order.getItems().stream())
+                .map(this::toReserveLine)
+                .toList();
+
+        Map<UUID, UUID> reservations = new LinkedHashMap<>();
+        try {
+            for (InventoryClient.BatchReserveResult result : inventoryClient.reserveBatch(lines)) {
+                if (result.reserved()) {
+                    // A multi-line order is recorded by its order id, which inventory keys its lines by
+                    reservations.merge(result.orderId(), result.reservationId(), (first, next) -> result.orderId());
+                } else {
+                    failures.putIfAbsent(result.orderId(), result.error());
+                }
+            }
+        } catch (Exception e) {
+            // Unknown outcome - some orders may have been reserved before the call failed
+            log.error("Batch reservation failed for {} orders: {}", orders.size(), e.getMessage());
+            orders.forEach(order -> {
+                failures.put(order.getId(), "Stock reservation failed: " + e.getMessage());
+                releaseQuietly(order.getId());
+            });
+            return Map.of();
+        }
+        return reservations;
+    }
+
+    private InventoryClient.BatchReserveLine toReserveLine(OrderItem item) {
+        return new InventoryClient.BatchReserveLine(item.getOrder().getId(), item.getProductId(), item.getQuantity());
+    }
+
+    /**
+     * Pre-authorizes every reserved order on the Phase 1 executor. The semaphore caps in-flight
+     * calls so a large batch cannot crowd single-order traffic out of the shared pool.
+     */
+    private Map<UUID, PaymentClient.PreAuthResult> preAuthorizeAll(List<Order> orders, Map<UUID, UUID> reservations,
+                                                                   Map<UUID, String> failures) {
+        Semaphore permits = new Semaphore(preauthConcurrency);
+        Map<UUID, CompletableFuture<PaymentClient.PreAuthResult>> calls = new LinkedHashMap<>();
+        Map<UUID, CompletableFuture<PaymentClient.PreAuthResult>> deadlines = new LinkedHashMap<>();
+
+        for (Order order : orders) {
+            if (!reservations.containsKey(order.getId())) {
+                continue;
+            }
+            permits.acquireUninterruptibly();
+            CompletableFuture<PaymentClient.PreAuthResult> call;
+            try {
+                call = CompletableFuture.supplyAsync(
+                        () -> paymentClient.preAuthorizePayment(order.getId(), order.getTotalAmount()), phase1Executor);
+                call.whenComplete((result, ex) -> permits.release());
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                call = CompletableFuture.failedFuture(e);
+            }
+            calls.put(order.getId(), call);
+            deadlines.put(order.getId(), call.copy().orTimeout(phase1DeadlineMs, TimeUnit.MILLISECONDS));
+        }
+
+        Map<UUID, PaymentClient.PreAuthResult> preauths = new HashMap<>();
+        deadlines.forEach((orderId, deadline) -> {
+            try {
+                preauths.put(orderId, deadline.join());
+            } catch (Exception e) {
+                failures.put(orderId, "Payment pre-authorization failed: " + e.getMessage());
+                // A late success is voided whenever it arrives
+                calls.get(orderId).thenAccept(preauth -> voidQuietly(preauth.preauthId()));
+            }
+        });
+        return preauths;
+    }
+
+    private void compensate(List<Order> orders, Map<UUID, UUID> reservations,
+                            Map<UUID, PaymentClient.PreAuthResult> preauths, Map<UUID, String> failures,
+                            Exception cause) {
+        preauths.values().forEach(preauth -> voidQuietly(preauth.preauthId()));
+        preauths.keySet().forEach(orderId -> {
+            if (reservations.containsKey(orderId)) {
+                releaseQuietly(orderId);
+            }
+        });
+        orders.forEach(order -> {
+            failures.putIfAbsent(order.getId(), "Order finalization failed: " + cause.getMessage());
+            orderService.cancelAfterPhase1Failure(order, failures.get(order.getId()));
+        });
+    }
+
+    private void releaseQuietly(UUID orderId) {
+        try {
+            inventoryClient.releaseStock(orderId);
+        } catch (Exception e) {
+            log.error("Failed to release stock for order {}: {}", orderId, e.getMessage());
+        }
+    }
+
+    private void voidQuietly(UUID preauthId) {
+        try {
+            paymentClient.voidPreAuth(preauthId);
+        } catch (Exception e) {
+            log.error("Failed to void pre-auth {}: {}", preauthId, e.getMessage());
+        }
+    }
+}
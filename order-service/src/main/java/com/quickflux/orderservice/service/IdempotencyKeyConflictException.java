@@ -0,0 +1,7 @@
+package com.quickflux.orderservice.service;
+
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
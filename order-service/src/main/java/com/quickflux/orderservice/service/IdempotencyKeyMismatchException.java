@@ -0,0 +1,7 @@
+package com.quickflux.orderservice.service;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
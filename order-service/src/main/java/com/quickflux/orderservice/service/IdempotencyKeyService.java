@@ -0,0 +1,186 @@
+package com.quickflux.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quickflux.orderservice.api.CreateOrderRequest;
+import com.quickflux.orderservice.api.CreateOrderResponse;
+import com.quickflux.orderservice.domain.IdempotencyKey;
+import com.quickflux.orderservice.repository.IdempotencyKeyRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for POST /api/orders (not to be confused with IdempotencyService,
+ * which deduplicates consumed events).
+ *
+ * Lookup order: completed keys cached in memory, then requests in flight on this instance (a
+ * duplicate waits on the original's future), then the idempotency_keys table, which arbitrates
+ * between instances. Failed creations release their key so the client can retry.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyKeyService {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<IdempotencyKey.Key, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${quickflux.idempotency.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${quickflux.idempotency.cache.ttl:10m}")
+    private Duration cacheTtl;
+
+    // An IN_PROGRESS claim older than this is assumed abandoned by a crashed instance
+    @Value("${quickflux.idempotency.in-progress-timeout:1m}")
+    private Duration inProgressTimeout;
+
+    @Value("${quickflux.idempotency.retention:24h}")
+    private Duration retention;
+
+    private Cache<IdempotencyKey.Key, Completed> completed;
+
+    private record Completed(String requestHash, CreateOrderResponse response) {}
+
+    private record InFlight(String requestHash, CompletableFuture<CreateOrderResponse> response) {}
+
+    @PostConstruct
+    void init() {
+        completed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Runs createOrder at most once per (user, key) and returns its response to every caller.
+     */
+    public CreateOrderResponse execute(UUID userId, String key, CreateOrderRequest request,
+                                       Supplier<CreateOrderResponse> createOrder) {
+        IdempotencyKey.Key id = new IdempotencyKey.Key(userId, key);
+        String requestHash = hash(request);
+
+        Completed cached = completed.getIfPresent(id);
+        if (cached != null) {
+            return replay(id, cached.requestHash(), requestHash, cached.response());
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight existing = inFlight.putIfAbsent(id, mine);
+        if (existing != null) {
+            if (!existing.requestHash().equals(requestHash)) {
+                throw new IdempotencyKeyMismatchException("Idempotency-Key was already used with a different request");
+            }
+            log.info("Idempotency key {} is in flight for user {}, waiting on the original request", key, userId);
+            return await(existing.response());
+        }
+
+        try {
+            CreateOrderResponse response = claimAndRun(id, requestHash, createOrder);
+            mine.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private CreateOrderResponse claimAndRun(IdempotencyKey.Key id, String requestHash,
+                                            Supplier<CreateOrderResponse> createOrder) {
+        Instant now = Instant.now();
+        boolean claimed = idempotencyKeyRepository.claim(id.getUserId(), id.getKey(), requestHash, now) == 1;
+
+        if (!claimed) {
+            IdempotencyKey record = idempotencyKeyRepository.findById(id).orElse(null);
+            if (record == null) {
+                // Released by a failed attempt between our insert and read
+                throw new IdempotencyKeyConflictException("Request with this Idempotency-Key was just retried, try again");
+            }
+            if (record.getStatus() == IdempotencyKey.Status.COMPLETED) {
+                CreateOrderResponse response = new CreateOrderResponse(record.getOrderId(), record.getResponseMessage());
+                completed.put(id, new Completed(record.getRequestHash(), response));
+                return replay(id, record.getRequestHash(), requestHash, response);
+            }
+            if (!record.getRequestHash().equals(requestHash)) {
+                throw new IdempotencyKeyMismatchException("Idempotency-Key was already used with a different request");
+            }
+            if (idempotencyKeyRepository.takeOver(id.getUserId(), id.getKey(), requestHash,
+                    IdempotencyKey.Status.IN_PROGRESS, now.minus(inProgressTimeout), now) == 0) {
+                throw new IdempotencyKeyConflictException("Request with this Idempotency-Key is still in progress");
+            }
+            log.warn("Took over abandoned Idempotency-Key {} for user {}", id.getKey(), id.getUserId());
+        }
+
+        CreateOrderResponse response;
+        try {
+            response = createOrder.get();
+        } catch (RuntimeException e) {
+            idempotencyKeyRepository.release(id.getUserId(), id.getKey(), IdempotencyKey.Status.IN_PROGRESS);
+            throw e;
+        }
+
+        idempotencyKeyRepository.complete(id.getUserId(), id.getKey(), IdempotencyKey.Status.COMPLETED,
+                response.orderId(), response.message(), Instant.now());
+        completed.put(id, new Completed(requestHash, response));
+        return response;
+    }
+
+    private CreateOrderResponse replay(IdempotencyKey.Key id, String storedHash, String requestHash,
+                                       CreateOrderResponse response) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key was already used with a different request");
+        }
+        log.info("Replaying response for Idempotency-Key {} of user {}", id.getKey(), id.getUserId());
+        return response;
+    }
+
+    private CreateOrderResponse await(CompletableFuture<CreateOrderResponse> original) {
+        try {
+            return original.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String hash(CreateOrderRequest request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash order request", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${quickflux.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = idempotencyKeyRepository.deleteCreatedBefore(Instant.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.quickflux.orderservice.service;
+
+import com.quickflux.orderservice.api.OrderCursor;
+import com.quickflux.orderservice.api.OrderPage;
+import com.quickflux.orderservice.api.OrderResponse;
+import com.quickflux.orderservice.api.OrderSummary;
+import com.quickflux.orderservice.domain.Order;
+import com.quickflux.orderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a user's order history without materializing all of it: keyset pages for the JSON API,
+ * and a forward-only JDBC cursor for streamed exports.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderHistoryService {
+
+    private static final String STREAM_SQL = """
+            SELECT id, product_id, quantity, total_amount, status, reservation_id, payment_preauth_id, created_at
+            FROM orders
+            WHERE user_id = ?
+            ORDER BY created_at DESC, id DESC
+            """;
+
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${quickflux.history.stream-fetch-size:500}")
+    private int streamFetchSize;
+
+    @Transactional(readOnly = true)
+    public OrderPage findPage(UUID userId, OrderCursor after, int limit) {
+        // One extra id tells whether another page exists
+        List<UUID> ids = after == null
+                ? orderRepository.findFirstPageIds(userId, Limit.of(limit + 1))
+                : orderRepository.findPageIdsAfter(userId, after.createdAt(), after.id(), Limit.of(limit + 1));
+
+        boolean hasMore = ids.size() > limit;
+        List<UUID> pageIds = hasMore ? ids.subList(0, limit) : ids;
+
+        Map<UUID, Order> ordersById = orderRepository.findWithItemsByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        List<Order> orders = pageIds.stream().map(ordersById::get).toList();
+        String nextCursor = hasMore
+                ? new OrderCursor(orders.get(orders.size() - 1).getCreatedAt(), orders.get(orders.size() - 1).getId()).encode()
+                : null;
+
+        return new OrderPage(orders.stream().map(OrderResponse::from).toList(), nextCursor);
+    }
+
+    /**
+     * Streams every order of a user, newest first, to the sink. Postgres only uses a server-side
+     * cursor with autocommit off, so the query runs in a read-only transaction with a fetch size.
+     */
+    public void streamSummaries(UUID userId, Consumer<OrderSummary> sink) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STREAM_SQL);
+            statement.setFetchSize(streamFetchSize);
+            statement.setObject(1, userId);
+            return statement;
+        }, (RowCallbackHandler) rs -> sink.accept(toSummary(rs))));
+    }
+
+    private OrderSummary toSummary(ResultSet rs) throws SQLException {
+        // created_at holds UTC wall-clock time, as Hibernate writes Instants
+        LocalDateTime createdAt = rs.getObject("created_at", LocalDateTime.class);
+        return new OrderSummary(
+                rs.getObject("id", UUID.class),
+                rs.getObject("product_id", UUID.class),
+                rs.getInt("quantity"),
+                rs.getBigDecimal("total_amount"),
+                rs.getString("status"),
+                rs.getObject("reservation_id", UUID.class),
+                rs.getObject("payment_preauth_id", UUID.class),
+                createdAt != null ? createdAt.toInstant(ZoneOffset.UTC) : null
+        );
+    }
+}
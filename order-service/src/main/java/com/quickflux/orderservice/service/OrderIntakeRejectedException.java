@@ -0,0 +1,7 @@
+package com.quickflux.orderservice.service;
+
+public class OrderIntakeRejectedException extends RuntimeException {
+    public OrderIntakeRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,99 @@
+package com.quickflux.orderservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.quickflux.orderservice.api.OrderResponse;
+import com.quickflux.orderservice.domain.OrderStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of OrderResponse for GET /api/orders/{orderId}.
+ * In-flight orders get a short TTL, which also bounds staleness on other instances; only CANCELLED
+ * orders get a long one. CONFIRMED is not final (a late payment.failed force-cancels it), so it
+ * keeps the short TTL. Every status change evicts the entry on the writing instance
+ * once its transaction commits. Stats are published as cache.* metrics tagged cache=orders.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderReadCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${quickflux.order-cache.max-size:50000}")
+    private long maxSize;
+
+    @Value("${quickflux.order-cache.in-flight-ttl:2s}")
+    private Duration inFlightTtl;
+
+    @Value("${quickflux.order-cache.terminal-ttl:30m}")
+    private Duration terminalTtl;
+
+    private Cache<UUID, OrderResponse> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<UUID, OrderResponse>() {
+                    @Override
+                    public long expireAfterCreate(UUID orderId, OrderResponse order, long currentTime) {
+                        return ttlFor(order).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(UUID orderId, OrderResponse order, long currentTime, long currentDuration) {
+                        return ttlFor(order).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(UUID orderId, OrderResponse order, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orders");
+    }
+
+    /**
+     * Returns the cached order or loads it; null (not found) is not cached.
+     */
+    public OrderResponse get(UUID orderId, Function<UUID, OrderResponse> loader) {
+        return cache.get(orderId, loader);
+    }
+
+    /**
+     * Evicts now and again after the surrounding transaction commits, so a read racing the
+     * write cannot re-cache the old state.
+     */
+    public void evict(UUID orderId) {
+        cache.invalidate(orderId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(orderId);
+                }
+            });
+        }
+    }
+
+    private Duration ttlFor(OrderResponse order) {
+        OrderStatus status = OrderStatus.valueOf(order.status());
+        return status == OrderStatus.CANCELLED ? terminalTtl : inFlightTtl;
+    }
+}
@@ -4,19 +4,31 @@ import com.quickflux.orderservice.api.CreateOrderRequest;
 import com.quickflux.orderservice.client.InventoryClient;
 import com.quickflux.orderservice.client.PaymentClient;
 import com.quickflux.orderservice.domain.Order;
+import com.quickflux.orderservice.domain.OrderItem;
 import com.quickflux.orderservice.domain.OrderStatus;
-import com.quickflux.orderservice.events.EventPublisher;
+import com.quickflux.contracts.events.OrderCancelledV1;
 import com.quickflux.contracts.events.OrderCreatedV1;
+import com.quickflux.contracts.events.OrderItemV1;
 import com.quickflux.orderservice.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -26,170 +38,261 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final PaymentClient paymentClient;
     private final InventoryClient inventoryClient;
-    private final EventPublisher eventPublisher;
+    private final OutboxService outboxService;
+    private final SagaJoinStore sagaJoinStore;
+    private final OrderReadCache orderReadCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Qualifier("phase1Executor")
+    private final ExecutorService phase1Executor;
+
+    @Qualifier("intakeExecutor")
+    private final ExecutorService intakeExecutor;
+
+    @Value("${quickflux.phase1.deadline-ms:3000}")
+    private long phase1DeadlineMs;
+
+    @Value("${quickflux.intake.mode:sync}")
+    private String intakeMode;
 
     // Hardcoded test user for Week 1
 //    private static final UUID TEST_USER_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
 
     public UUID createOrder(CreateOrderRequest request, UUID userId) {
-        log.info("Creating order for user {} product {} x {}",
-                userId, request.getProductId(), request.getQuantity());
+        List<CreateOrderRequest.OrderLine> lines = request.lines();
+        log.info("Creating order for user {} with {} line(s)", userId, lines.size());
 
-        // Calculate total
-        BigDecimal totalAmount = request.getUnitPrice()
-                .multiply(BigDecimal.valueOf(request.getQuantity()));
+        // Create order in CREATED state (write 1). The aggregate is carried through
+        // every phase from here on - nothing below reloads it.
+        Order order = createOrderInNewTransaction(lines, userId);
 
-        // Create order in CREATED state (in separate transaction)
-        UUID orderId = createOrderInNewTransaction(request, totalAmount, userId);
+        // Async intake: answer 202 now, Phase 1 runs on the intake pipeline
+        if ("async".equalsIgnoreCase(intakeMode)) {
+            submitPhase1(order);
+            return order.getId();
+        }
 
         // Step 3: Phase 1 - Parallel validation calls (REST)
         try {
-            performPhase1Validation(orderId);
-            publishOrderCreatedEvent(orderId);
-            return orderId;
+            performPhase1Validation(order);
+            return order.getId();
 
         } catch (Exception e) {
-            log.error("Phase 1 failed for order {}: {}", orderId, e.getMessage());
-            cancelOrderInNewTransaction(orderId);
+            log.error("Phase 1 failed for order {}: {}", order.getId(), e.getMessage());
+            cancelAfterPhase1Failure(order, phase1FailureReason(e));
             throw new OrderCreationFailedException("Order creation failed: " + e.getMessage(), e);
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public UUID createOrderInNewTransaction(CreateOrderRequest request, BigDecimal totalAmount, UUID userId) {
-        Order order = Order.builder()
-                .id(UUID.randomUUID())
-                .userId(userId)
-                .productId(request.getProductId())
-                .quantity(request.getQuantity())
-                .unitPrice(request.getUnitPrice())
-                .totalAmount(totalAmount)
-                .status(OrderStatus.CREATED)
-                .createdAt(Instant.now())
-                .build();
+    /**
+     * Starts Phase 1 without holding a thread for it: the two calls run on phase1Executor, and
+     * only the finalize transaction (or the cancellation) is handed to the intake pool once they
+     * have completed. In-flight orders are bounded by the Phase 1 pool, not by the intake pool.
+     */
+    private void submitPhase1(Order order) {
+        CompletableFuture<Void> phase1;
+        try {
+            phase1 = runPhase1(order, intakeExecutor);
+        } catch (RejectedExecutionException e) {
+            // Nothing was called downstream yet - cancel quietly and tell the client to retry
+            cancelOrderInNewTransaction(order.getId());
+            throw new OrderIntakeRejectedException("Order intake is at capacity, retry later");
+        }
 
-        orderRepository.save(order);
-        log.info("Order {} created in CREATED state", order.getId());
-        return order.getId();
+        // A full intake pool also rejects the finalize step, so the cancel must not depend on it
+        phase1.whenComplete((result, ex) -> {
+            if (ex == null) {
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            log.error("Phase 1 failed for order {}: {}", order.getId(), cause.getMessage());
+            runOrInline(intakeExecutor, () -> cancelAfterPhase1Failure(order, phase1FailureReason(cause)));
+        });
     }
 
-    private void performPhase1Validation(UUID orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
-
-        log.info("Starting Phase 1 validation for order {}", order.getId());
-
-        CompletableFuture<UUID> reservationFuture = CompletableFuture.supplyAsync(
-                () -> inventoryClient.reserveStock(
-                        order.getId(),
-                        order.getProductId(),
-                        order.getQuantity()
-                )
-        );
-
-        CompletableFuture<PaymentClient.PreAuthResult> preauthFuture = CompletableFuture.supplyAsync(
-                () -> paymentClient.preAuthorizePayment(order.getId(), order.getTotalAmount())
-        );
-
+    /**
+     * Cancels a CREATED order whose Phase 1 failed and publishes OrderCancelled, so clients that
+     * already got 202 learn the outcome over the websocket.
+     */
+    void cancelAfterPhase1Failure(Order order, String reason) {
         try {
-            CompletableFuture.allOf(reservationFuture, preauthFuture).join();
-
-            UUID reservationId = reservationFuture.get();
-            PaymentClient.PreAuthResult preauthResult = preauthFuture.get();
-
-            // Both succeeded - update order to PENDING
-            updateOrderToPending(order.getId(), reservationId, preauthResult.preauthId());
-
-            log.info("Phase 1 complete for order {}. ReservationId: {}, PreauthId: {}",
-                    order.getId(), reservationId, preauthResult.preauthId());
-
+            transactionTemplate.executeWithoutResult(status -> cancelAndPublish(order, reason));
+            log.info("Order {} cancelled after Phase 1 failure", order.getId());
         } catch (Exception e) {
-            cleanupPhase1PartialFailure(reservationFuture, preauthFuture, order.getId());
-            throw new RuntimeException("Phase 1 validation failed", e);
+            log.error("Failed to cancel order {} after Phase 1 failure: {}", order.getId(), e.getMessage());
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void updateOrderToPending(UUID orderId, UUID reservationId, UUID preauthId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+    // Must run inside a transaction so the status change and the outbox row commit together
+    void cancelAndPublish(Order order, String reason) {
+        if (orderRepository.updateStatus(order.getId(), OrderStatus.CREATED, OrderStatus.CANCELLED) == 0) {
+            log.warn("Order {} was not in CREATED state, nothing to cancel", order.getId());
+            return;
+        }
+        orderReadCache.evict(order.getId());
+        publishOrderCancelledEvent(order, reason);
+    }
 
-        order.markAsPending(reservationId, preauthId);
+    private String phase1FailureReason(Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return "Order validation failed: " + cause.getMessage();
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Order createOrderInNewTransaction(List<CreateOrderRequest.OrderLine> lines, UUID userId) {
+        Order order = buildOrder(lines, userId);
         orderRepository.save(order);
+        log.info("Order {} created in CREATED state", order.getId());
+        return order;
     }
 
-    private void publishOrderCreatedEvent(UUID orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+    // Builds a CREATED order without saving it; shared with bulk intake
+    Order buildOrder(List<CreateOrderRequest.OrderLine> lines, UUID userId) {
+        // Calculate total - one pre-auth covers every line
+        BigDecimal totalAmount = lines.stream()
+                .map(line -> line.unitPrice().multiply(BigDecimal.valueOf(line.quantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        UUID correlationId = UUID.randomUUID();
+        // Single-line orders keep product and price on the order row as well
+        CreateOrderRequest.OrderLine singleLine = lines.size() == 1 ? lines.get(0) : null;
 
-        OrderCreatedV1 event = new OrderCreatedV1(
-                UUID.randomUUID(),
-                "OrderCreated",
-                "v1",
-                correlationId,
-                Instant.now(),
-                "order-service",
-                order.getId(),
-                order.getProductId(),
-                order.getQuantity(),
-                order.getTotalAmount(),
-                order.getUserId(),
-                order.getReservationId(),
-                order.getPaymentPreauthId()
-        );
+        Order order = Order.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .productId(singleLine != null ? singleLine.productId() : null)
+                .quantity(lines.stream().mapToInt(CreateOrderRequest.OrderLine::quantity).sum())
+                .unitPrice(singleLine != null ? singleLine.unitPrice() : null)
+                .totalAmount(totalAmount)
+                .status(OrderStatus.CREATED)
+                .createdAt(Instant.now())
+                .build();
 
-        eventPublisher.publish("order.created", order.getId().toString(), event);
-        log.info("OrderCreated event published for order {}", order.getId());
+        lines.forEach(line -> order.addItem(line.productId(), line.quantity(), line.unitPrice()));
+        return order;
     }
 
-    // Extract Phase 1 logic
     private void performPhase1Validation(Order order) {
+        try {
+            // Finalize on whichever thread completes the calls; this request thread just waits
+            runPhase1(order, Runnable::run).join();
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Phase 1 validation failed", cause);
+        }
+    }
+
+    /**
+     * Runs both Phase 1 calls concurrently and, once both have succeeded, moves the order to
+     * PENDING with its OrderCreated event in one transaction (write 2) on finalizeExecutor.
+     * Blocks no thread while the calls are in flight. Any failure compensates whichever call
+     * succeeded, now or whenever it finishes.
+     */
+    private CompletableFuture<Void> runPhase1(Order order, Executor finalizeExecutor) {
         log.info("Starting Phase 1 validation for order {}", order.getId());
 
         // CRITICAL: Make both calls concurrently
-        CompletableFuture<UUID> reservationFuture = CompletableFuture.supplyAsync(
-                () -> inventoryClient.reserveStock(
-                        order.getId(),
-                        order.getProductId(),
-                        order.getQuantity()
-                )
-        );
+        CompletableFuture<UUID> reservationFuture = supplyPhase1(() -> reserveStock(order));
+        CompletableFuture<PaymentClient.PreAuthResult> preauthFuture;
+        try {
+            preauthFuture = supplyPhase1(
+                    () -> paymentClient.preAuthorizePayment(order.getId(), order.getTotalAmount())
+            );
+        } catch (RejectedExecutionException e) {
+            cleanupPhase1PartialFailure(reservationFuture, null, order.getId());
+            throw e;
+        }
 
-        CompletableFuture<PaymentClient.PreAuthResult> preauthFuture = CompletableFuture.supplyAsync(
-                () -> paymentClient.preAuthorizePayment(order.getId(), order.getTotalAmount())
-        );
+        return withinPhase1Deadline(reservationFuture, preauthFuture)
+                .thenRunAsync(() -> {
+                    UUID reservationId = reservationFuture.join();
+                    PaymentClient.PreAuthResult preauthResult = preauthFuture.join();
+
+                    // Both succeeded - move to PENDING and enqueue OrderCreated in one transaction (write 2)
+                    transactionTemplate.executeWithoutResult(status ->
+                            markPendingAndPublish(order, reservationId, preauthResult.preauthId()));
+
+                    log.info("Phase 1 complete for order {}. ReservationId: {}, PreauthId: {}",
+                            order.getId(), reservationId, preauthResult.preauthId());
+                }, finalizeExecutor)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        cleanupPhase1PartialFailure(reservationFuture, preauthFuture, order.getId());
+                    }
+                });
+    }
 
-        // Wait for both to complete
-        try {
-            CompletableFuture.allOf(reservationFuture, preauthFuture).join();
+    private UUID reserveStock(Order order) {
+        if (order.getItems().size() == 1) {
+            OrderItem item = order.getItems().get(0);
+            return inventoryClient.reserveStock(order.getId(), item.getProductId(), item.getQuantity());
+        }
 
-            UUID reservationId = reservationFuture.get();
-            PaymentClient.PreAuthResult preauthResult = preauthFuture.get();
+        List<InventoryClient.ReserveLine> lines = order.getItems().stream()
+                .map(item -> new InventoryClient.ReserveLine(item.getProductId(), item.getQuantity()))
+                .toList();
+        List<UUID> reservationIds = inventoryClient.reserveStock(order.getId(), lines);
+        log.info("Reserved {} line(s) for order {}: {}", reservationIds.size(), order.getId(), reservationIds);
 
-            // Both succeeded - update order to PENDING
-            order.markAsPending(reservationId, preauthResult.preauthId());
-            orderRepository.save(order);
+        // No single line stands for the order: record the order id, which inventory keys them all by
+        return order.getId();
+    }
 
-            log.info("Phase 1 complete for order {}. ReservationId: {}, PreauthId: {}",
-                    order.getId(), reservationId, preauthResult.preauthId());
+    // Must run inside a transaction so the status change and the outbox row commit together
+    void markPendingAndPublish(Order order, UUID reservationId, UUID preauthId) {
+        markOrderAsPending(order, reservationId, preauthId);
+        publishOrderCreatedEvent(order);
+    }
 
-        } catch (Exception e) {
-            cleanupPhase1PartialFailure(reservationFuture, preauthFuture, order.getId());
-            throw new RuntimeException("Phase 1 validation failed", e);
+    private void markOrderAsPending(Order order, UUID reservationId, UUID preauthId) {
+        // Validate the transition in memory, then apply it with a guarded UPDATE
+        order.markAsPending(reservationId, preauthId);
+
+        if (orderRepository.markAsPending(order.getId(), reservationId, preauthId) == 0) {
+            throw new IllegalStateException("Order " + order.getId() + " is no longer CREATED");
         }
+        orderReadCache.evict(order.getId());
     }
 
     @Transactional
     public void forceCancelOrder(UUID orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
-
         // Force cancel regardless of current status
-        log.warn("Force cancelling order {} from status {}", orderId, order.getStatus());
-        order.setStatus(OrderStatus.CANCELLED);  // Direct set, bypass state machine
-        orderRepository.save(order);
+        log.warn("Force cancelling order {}", orderId);
+
+        if (orderRepository.forceCancel(orderId) == 0) {
+            throw new OrderNotFoundException("Order not found: " + orderId);
+        }
+        orderReadCache.evict(orderId);
+    }
+
+    private <T> CompletableFuture<T> supplyPhase1(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, phase1Executor);
+    }
+
+    /**
+     * Completes when both Phase 1 calls have, each under its own deadline. The first failure or
+     * timeout cancels the wait on its sibling so the order fails fast. Only the copies are
+     * cancelled: a blocking HTTP call cannot be interrupted, so the sibling keeps running and its
+     * result is compensated by cleanupPhase1PartialFailure whenever it arrives.
+     */
+    private CompletableFuture<Void> withinPhase1Deadline(CompletableFuture<UUID> reservationFuture,
+                                                         CompletableFuture<PaymentClient.PreAuthResult> preauthFuture) {
+        CompletableFuture<UUID> reservation = reservationFuture.copy()
+                .orTimeout(phase1DeadlineMs, TimeUnit.MILLISECONDS);
+        CompletableFuture<PaymentClient.PreAuthResult> preauth = preauthFuture.copy()
+                .orTimeout(phase1DeadlineMs, TimeUnit.MILLISECONDS);
+
+        reservation.whenComplete((result, ex) -> {
+            if (ex != null) {
+                preauth.cancel(false);
+            }
+        });
+        preauth.whenComplete((result, ex) -> {
+            if (ex != null) {
+                reservation.cancel(false);
+            }
+        });
+
+        return CompletableFuture.allOf(reservation, preauth);
     }
 
     private void cleanupPhase1PartialFailure(
@@ -197,37 +300,52 @@ public class OrderService {
             CompletableFuture<PaymentClient.PreAuthResult> preauthFuture,
             UUID orderId) {
 
-        // Check if reservation succeeded
-        if (reservationFuture.isDone() && !reservationFuture.isCompletedExceptionally()) {
-            try {
-                UUID reservationId = reservationFuture.get();
-                log.warn("Reservation {} succeeded but payment failed. Releasing stock...", reservationId);
-                inventoryClient.releaseStock(orderId);
-            } catch (Exception ex) {
-                log.error("Failed to release stock during cleanup: {}", ex.getMessage());
-            }
+        // The failure may arrive on the JDK's shared orTimeout thread: only hand the HTTP calls
+        // off from there, never make them on it
+
+        // Release the reservation if it succeeded - now or after we stopped waiting for it
+        if (reservationFuture != null) {
+            reservationFuture.thenAccept(reservationId -> runOrInline(phase1Executor, () -> {
+                try {
+                    log.warn("Reservation {} succeeded but Phase 1 failed. Releasing stock...", reservationId);
+                    inventoryClient.releaseStock(orderId);
+                } catch (Exception ex) {
+                    log.error("Failed to release stock during cleanup: {}", ex.getMessage());
+                }
+            }));
         }
 
-        // Check if pre-auth succeeded
-        if (preauthFuture.isDone() && !preauthFuture.isCompletedExceptionally()) {
-            try {
-                PaymentClient.PreAuthResult preauth = preauthFuture.get();
-                log.warn("Pre-auth {} succeeded but reservation failed. Voiding payment...", preauth.preauthId());
-                paymentClient.voidPreAuth(preauth.preauthId());
-            } catch (Exception ex) {
-                log.error("Failed to void pre-auth during cleanup: {}", ex.getMessage());
-            }
+        // Void the pre-auth if it succeeded - now or after we stopped waiting for it
+        if (preauthFuture != null) {
+            preauthFuture.thenAccept(preauth -> runOrInline(phase1Executor, () -> {
+                try {
+                    log.warn("Pre-auth {} succeeded but Phase 1 failed. Voiding payment...", preauth.preauthId());
+                    paymentClient.voidPreAuth(preauth.preauthId());
+                } catch (Exception ex) {
+                    log.error("Failed to void pre-auth during cleanup: {}", ex.getMessage());
+                }
+            }));
+        }
+    }
+
+    // Compensation must not be lost to a full pool: run it on the caller's thread instead
+    private void runOrInline(Executor executor, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Executor full, running compensation inline: {}", e.getMessage());
+            task.run();
         }
     }
 
     // Cancel in a separate transaction so it commits even if parent rolls back
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void cancelOrderInNewTransaction(UUID orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
-
-        order.cancel();
-        orderRepository.save(order);
+        if (orderRepository.updateStatus(orderId, OrderStatus.CREATED, OrderStatus.CANCELLED) == 0) {
+            log.warn("Order {} was not in CREATED state, nothing to cancel", orderId);
+            return;
+        }
+        orderReadCache.evict(orderId);
         log.info("Order {} cancelled", orderId);
     }
 
@@ -247,30 +365,67 @@ public class OrderService {
                 order.getTotalAmount(),
                 order.getUserId(),
                 order.getReservationId(),
-                order.getPaymentPreauthId()
+                order.getPaymentPreauthId(),
+                order.getItems().stream()
+                        .map(item -> new OrderItemV1(item.getProductId(), item.getQuantity(), item.getPriceAtOrder()))
+                        .toList()
+        );
+
+        outboxService.enqueue("order.created", order.getId(), event);
+        log.info("OrderCreated event enqueued for order {}", order.getId());
+    }
+
+    private void publishOrderCancelledEvent(Order order, String reason) {
+        OrderCancelledV1 event = new OrderCancelledV1(
+                UUID.randomUUID(),
+                "OrderCancelled",
+                "v1",
+                UUID.randomUUID(),
+                Instant.now(),
+                "order-service",
+                order.getId(),
+                reason,
+                order.getUserId()
         );
 
-        eventPublisher.publish("order.created", order.getId().toString(), event);
-        log.info("OrderCreated event published for order {}", order.getId());
+        outboxService.enqueue("order.cancelled", order.getId(), event);
+        log.info("OrderCancelled event enqueued for order {}", order.getId());
     }
 
     @Transactional
     public void confirmOrder(UUID orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
-
-        order.confirm();
-        orderRepository.save(order);
+        if (orderRepository.updateStatus(orderId, OrderStatus.PENDING, OrderStatus.CONFIRMED) == 0) {
+            throw rejectedTransition(orderId, "Can only confirm PENDING orders");
+        }
+        orderReadCache.evict(orderId);
         log.info("Order {} confirmed", orderId);
     }
 
+    /**
+     * Records one Phase 2 event and confirms the order when it completes the join.
+     * The flag and the confirmation commit together, so a crash in between is redelivered cleanly.
+     */
     @Transactional
-    public void cancelOrder(UUID orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+    public void recordSagaStep(UUID orderId, SagaJoinStore.Step step) {
+        if (sagaJoinStore.recordAndCheckComplete(orderId, step)) {
+            log.info("Both payment and stock confirmed for order {}. Marking as CONFIRMED", orderId);
+            confirmOrder(orderId);
+        }
+    }
 
-        order.cancel();
-        orderRepository.save(order);
+    @Transactional
+    public void cancelOrder(UUID orderId) {
+        if (orderRepository.cancel(orderId) == 0) {
+            throw rejectedTransition(orderId, "Cannot cancel CONFIRMED orders");
+        }
+        orderReadCache.evict(orderId);
         log.info("Order {} cancelled", orderId);
     }
-}
\ No newline at end of file
+
+    // Only reached when a guarded UPDATE matched no row - tell a missing order from a wrong state
+    private RuntimeException rejectedTransition(UUID orderId, String reason) {
+        OrderStatus status = orderRepository.findStatusById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+        return new IllegalStateException(reason + " (order " + orderId + " is " + status + ")");
+    }
+}
@@ -0,0 +1,49 @@
+package com.quickflux.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickflux.contracts.events.DomainEvent;
+import com.quickflux.orderservice.domain.OutboxEvent;
+import com.quickflux.orderservice.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Must join the caller's transaction: the event is only relayed
+     * if the state change it describes commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, UUID aggregateId, DomainEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize event " + event.eventId(), e);
+        }
+
+        OutboxEvent outboxEvent = OutboxEvent.builder()
+                .aggregateId(aggregateId)
+                .topic(topic)
+                .eventKey(aggregateId.toString())
+                .eventType(event.getClass().getName())
+                .payload(payload)
+                .createdAt(Instant.now())
+                .build();
+
+        outboxEventRepository.save(outboxEvent);
+        log.debug("Enqueued event {} for topic {} in outbox", event.eventId(), topic);
+    }
+}
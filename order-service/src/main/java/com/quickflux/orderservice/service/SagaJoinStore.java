@@ -0,0 +1,94 @@
+package com.quickflux.orderservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quickflux.orderservice.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Joins the two Phase 2 events of an order. The flags live in orders.saga_flags and are set with a
+ * guarded UPDATE, so exactly one event - on any instance, before or after a restart - sees the join
+ * complete. A bounded, expiring cache of known flags only short-cuts duplicate deliveries.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SagaJoinStore {
+
+    public enum Step {
+        PAYMENT_CAPTURED(1),
+        STOCK_CONFIRMED(2);
+
+        private final int flag;
+
+        Step(int flag) {
+            this.flag = flag;
+        }
+    }
+
+    private static final int ALL_STEPS = Step.PAYMENT_CAPTURED.flag | Step.STOCK_CONFIRMED.flag;
+
+    private final OrderRepository orderRepository;
+
+    @Value("${quickflux.saga.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${quickflux.saga.cache.ttl:10m}")
+    private Duration cacheTtl;
+
+    private Cache<UUID, Integer> knownFlags;
+
+    @PostConstruct
+    void init() {
+        knownFlags = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Records a step and returns true only for the call that completes the join.
+     * Must run in the caller's transaction so the flag commits together with the confirmation.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean recordAndCheckComplete(UUID orderId, Step step) {
+        Integer cached = knownFlags.getIfPresent(orderId);
+        if (cached != null && (cached & step.flag) != 0) {
+            log.debug("Saga step {} already recorded for order {}", step, orderId);
+            return false;
+        }
+
+        Optional<Integer> flags = orderRepository.setSagaFlag(orderId, step.flag);
+        if (flags.isEmpty()) {
+            log.debug("Saga step {} already recorded for order {} (or order missing)", step, orderId);
+            return false;
+        }
+
+        boolean complete = flags.get() == ALL_STEPS;
+
+        // Only cache what has committed; a rolled-back flag must not hide the redelivery
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (complete) {
+                    knownFlags.invalidate(orderId);
+                } else {
+                    knownFlags.put(orderId, flags.get());
+                }
+            }
+        });
+
+        return complete;
+    }
+}
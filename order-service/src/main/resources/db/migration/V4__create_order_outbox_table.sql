@@ -0,0 +1,11 @@
+CREATE TABLE order_outbox (
+    id              BIGSERIAL PRIMARY KEY,
+    aggregate_id    UUID NOT NULL,
+    topic           VARCHAR(100) NOT NULL,
+    event_key       VARCHAR(100) NOT NULL,
+    event_type      VARCHAR(255) NOT NULL,
+    payload         TEXT NOT NULL,
+    created_at      TIMESTAMP NOT NULL DEFAULT (NOW() AT TIME ZONE 'UTC')
+);
+
+CREATE INDEX idx_order_outbox_aggregate_id ON order_outbox(aggregate_id);
@@ -0,0 +1,4 @@
+-- Multi-line orders keep their lines in order_items.
+-- product_id and unit_price on orders are only set for single-line orders; quantity is the total units.
+ALTER TABLE orders ALTER COLUMN product_id DROP NOT NULL;
+ALTER TABLE orders ALTER COLUMN unit_price DROP NOT NULL;
@@ -0,0 +1,3 @@
+-- Saga join state: one bit per Phase 2 event (1 = payment captured, 2 = stock confirmed).
+-- Kept on the order row so it survives restarts and is shared by every consumer instance.
+ALTER TABLE orders ADD COLUMN saga_flags INTEGER NOT NULL DEFAULT 0;
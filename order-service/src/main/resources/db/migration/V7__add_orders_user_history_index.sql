@@ -0,0 +1,3 @@
+-- Keyset pagination of a user's history on (created_at, id), newest first.
+-- idx_orders_created_at alone cannot serve a per-user range, so the key columns follow user_id.
+CREATE INDEX idx_orders_user_created_at_id ON orders(user_id, created_at DESC, id DESC);
@@ -0,0 +1,17 @@
+-- Idempotency-Key records for POST /api/orders, scoped per user.
+-- IN_PROGRESS rows are claimed before createOrder runs; COMPLETED rows replay the stored response.
+CREATE TABLE idempotency_keys (
+    user_id             UUID NOT NULL,
+    idempotency_key     VARCHAR(255) NOT NULL,
+    request_hash        VARCHAR(64) NOT NULL,
+    status              VARCHAR(20) NOT NULL,
+    order_id            UUID,
+    response_message    TEXT,
+    created_at          TIMESTAMP NOT NULL DEFAULT (NOW() AT TIME ZONE 'UTC'),
+    completed_at        TIMESTAMP,
+
+    PRIMARY KEY (user_id, idempotency_key),
+    CONSTRAINT chk_idempotency_status CHECK (status IN ('IN_PROGRESS', 'COMPLETED'))
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys(created_at);
@@ -1,13 +1,17 @@
 package com.quickflux.paymentservice.api;
 
+import com.quickflux.paymentservice.gateway.GatewayUnavailableException;
 import com.quickflux.paymentservice.gateway.PaymentGateway.PreAuthResult;
+import com.quickflux.paymentservice.service.PaymentPreAuthFailedException;
 import com.quickflux.paymentservice.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -17,21 +21,31 @@ public class PaymentController {
 
     private final PaymentService paymentService;
 
+    // Async: the request thread is released while the gateway call is in flight
     @PostMapping("/preauth")
-    public ResponseEntity<PreAuthResult> preAuthorize(
+    public CompletableFuture<ResponseEntity<PreAuthResult>> preAuthorize(
             @RequestParam UUID orderId,
             @RequestParam BigDecimal amount) {
 
         log.info("Received pre-auth request for order {}, amount: {}", orderId, amount);
 
-        PreAuthResult result = paymentService.preAuthorizePayment(orderId, amount);
-        return ResponseEntity.ok(result);
+        return paymentService.preAuthorizePaymentAsync(orderId, amount)
+                .thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/void")
-    public ResponseEntity<Void> voidPreAuth(@RequestParam UUID preauthId) {
+    public CompletableFuture<ResponseEntity<Void>> voidPreAuth(@RequestParam UUID preauthId) {
         log.info("Received void pre-auth request for {}", preauthId);
-        paymentService.voidPreAuth(preauthId);
-        return ResponseEntity.ok().build();
+        return paymentService.voidPreAuthAsync(preauthId)
+                .thenApply(ignored -> ResponseEntity.ok().<Void>build());
     }
-}
\ No newline at end of file
+
+    // Shed by the gateway's resilience layer: tell the caller to back off rather than report an error
+    @ExceptionHandler(PaymentPreAuthFailedException.class)
+    public ResponseEntity<String> preAuthFailed(PaymentPreAuthFailedException e) {
+        HttpStatus status = e.getCause() instanceof GatewayUnavailableException
+                ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(e.getMessage());
+    }
+}
@@ -1,13 +1,40 @@
 package com.quickflux.paymentservice.config;
 
+import com.quickflux.paymentservice.service.PaymentNotFoundException;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 @Configuration
 public class KafkaConfig {
 
+    @Value("${quickflux.payment.consumer.retry-max-interval-ms:30000}")
+    private long retryMaxIntervalMs;
+
+    /**
+     * Applied to both listener factories. A failed order.created record (or poll) is retried
+     * with backoff until it succeeds instead of being skipped after a few attempts: a capture
+     * with an unknown outcome only gets its payment.captured / payment.failed published by the
+     * retry that finds it resolved, so skipping it would leave the order PENDING for good.
+     * A payment that does not exist will never appear, so that one is not retried.
+     */
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler() {
+        ExponentialBackOff backOff = new ExponentialBackOff(1000, 2.0);
+        backOff.setMaxInterval(retryMaxIntervalMs);
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(backOff);
+        errorHandler.addNotRetryableExceptions(PaymentNotFoundException.class);
+        return errorHandler;
+    }
+
     @Bean
     public NewTopic paymentCapturedTopic() {
         return TopicBuilder.name("payment.captured")
@@ -23,4 +50,15 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
-}
\ No newline at end of file
+
+    // Same settings as the default factory, but hands listeners a whole poll at once
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        return factory;
+    }
+}
@@ -0,0 +1,36 @@
+package com.quickflux.paymentservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor for the blocking steps around async gateway calls (loading and saving payments).
+ * Gateway waits hold no thread, so this pool only needs to match the JDBC connection pool,
+ * not the number of payments in flight.
+ */
+@Slf4j
+@Configuration
+public class PaymentExecutorConfig {
+
+    @Value("${quickflux.payment.db-pool-size:10}")
+    private int poolSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService paymentDbExecutor() {
+        log.info("Payment DB executor: pool={}", poolSize);
+
+        return new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("payment-db-"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.quickflux.paymentservice.config;
+
+import com.quickflux.paymentservice.gateway.AsyncPaymentGateway;
+import com.quickflux.paymentservice.gateway.ResilientPaymentGateway;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import java.time.Duration;
+
+/**
+ * Wraps the provider gateway in ResilientPaymentGateway. It is the primary AsyncPaymentGateway,
+ * so PaymentService gets the wrapped one; switching providers only changes the qualifier.
+ */
+@Slf4j
+@Configuration
+public class PaymentGatewayConfig {
+
+    @Value("${quickflux.payment.gateway.max-concurrent-calls:50}")
+    private int maxConcurrentCalls;
+
+    @Value("${quickflux.payment.gateway.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${quickflux.payment.gateway.min-limit:2}")
+    private int minLimit;
+
+    @Value("${quickflux.payment.gateway.backoff-ratio:0.75}")
+    private double backoffRatio;
+
+    @Value("${quickflux.payment.gateway.call-timeout-ms:5000}")
+    private long callTimeoutMs;
+
+    @Value("${quickflux.payment.gateway.slow-call-threshold-ms:2000}")
+    private long slowCallThresholdMs;
+
+    @Value("${quickflux.payment.gateway.window-size:50}")
+    private int windowSize;
+
+    @Value("${quickflux.payment.gateway.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${quickflux.payment.gateway.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${quickflux.payment.gateway.slow-call-rate-threshold:80}")
+    private int slowCallRateThreshold;
+
+    @Value("${quickflux.payment.gateway.open-duration-ms:10000}")
+    private long openDurationMs;
+
+    @Value("${quickflux.payment.gateway.half-open-calls:5}")
+    private int halfOpenCalls;
+
+    @Bean
+    @Primary
+    public ResilientPaymentGateway resilientPaymentGateway(
+            @Qualifier("fakeStripeGateway") AsyncPaymentGateway delegate,
+            MeterRegistry meterRegistry) {
+        log.info("Payment gateway resilience: bulkhead={} limit={}..{} timeout={}ms slow={}ms",
+                maxConcurrentCalls, minLimit, initialLimit, callTimeoutMs, slowCallThresholdMs);
+
+        return new ResilientPaymentGateway(delegate, new ResilientPaymentGateway.Settings(
+                maxConcurrentCalls,
+                initialLimit,
+                minLimit,
+                backoffRatio,
+                Duration.ofMillis(callTimeoutMs),
+                Duration.ofMillis(slowCallThresholdMs),
+                windowSize,
+                minimumCalls,
+                failureRateThreshold,
+                slowCallRateThreshold,
+                Duration.ofMillis(openDurationMs),
+                halfOpenCalls), meterRegistry);
+    }
+}
@@ -29,7 +29,8 @@ public class Payment {
     @Column(nullable = false)
     private PaymentStatus status;
 
-    @Column(nullable = false, columnDefinition = "uuid")
+    // Null until the gateway has answered the pre-auth
+    @Column(columnDefinition = "uuid")
     private UUID preauthId;
 
     @Column(length = 100)
@@ -49,14 +50,8 @@ public class Payment {
     @Column(length = 200)
     private String captureIdempotencyKey;
 
-    public void markAsCaptured(String captureId) {
-        if (this.status != PaymentStatus.PRE_AUTHORIZED) {
-            throw new IllegalStateException("Can only capture PRE_AUTHORIZED payments");
-        }
-        this.status = PaymentStatus.CAPTURED;
-        this.captureId = captureId;
-        this.capturedAt = Instant.now();
-    }
+    // When the current *_PENDING intent was written (or last claimed by recovery)
+    private Instant pendingSince;
 
     public void markAsFailed() {
         this.status = PaymentStatus.FAILED;
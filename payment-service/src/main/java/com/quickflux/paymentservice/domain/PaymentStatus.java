@@ -1,8 +1,11 @@
 package com.quickflux.paymentservice.domain;
 
 public enum PaymentStatus {
+    PREAUTH_PENDING,
     PRE_AUTHORIZED,
+    CAPTURE_PENDING,
     CAPTURED,
+    VOIDING,
     VOIDED,
     FAILED
 }
\ No newline at end of file
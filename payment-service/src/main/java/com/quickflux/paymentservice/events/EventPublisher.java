@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import com.quickflux.contracts.events.*;
 
 @Slf4j
@@ -28,4 +30,23 @@ public class EventPublisher {
                     }
                 });
     }
-}
\ No newline at end of file
+
+    public record Publication(String topic, String key, DomainEvent event) {}
+
+    /**
+     * Sends all events at once; the future completes when every one has been acknowledged
+     * and fails if any send failed.
+     */
+    public CompletableFuture<Void> publishAll(List<Publication> publications) {
+        log.info("Publishing {} event(s)", publications.size());
+
+        return CompletableFuture.allOf(publications.stream()
+                .map(publication -> kafkaTemplate.send(publication.topic(), publication.key(), publication.event())
+                        .whenComplete((result, ex) -> {
+                            if (ex != null) {
+                                log.error("Failed to publish event {}: {}", publication.event().eventId(), ex.getMessage());
+                            }
+                        }))
+                .toArray(CompletableFuture[]::new));
+    }
+}
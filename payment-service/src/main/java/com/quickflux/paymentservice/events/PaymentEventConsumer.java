@@ -1,14 +1,27 @@
 package com.quickflux.paymentservice.events;
 
+import com.quickflux.paymentservice.events.EventPublisher.Publication;
 import com.quickflux.paymentservice.gateway.PaymentGateway.CaptureResult;
 import com.quickflux.paymentservice.service.IdempotencyService;
+import com.quickflux.paymentservice.service.PaymentOutcomeUnknownException;
 import com.quickflux.paymentservice.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import com.quickflux.contracts.events.*;
 
 @Slf4j
@@ -20,7 +33,14 @@ public class PaymentEventConsumer {
     private final IdempotencyService idempotencyService;
     private final EventPublisher eventPublisher;
 
-    @KafkaListener(topics = "order.created", groupId = "payment-service")
+    @Value("${quickflux.payment.consumer.capture-concurrency:32}")
+    private int captureConcurrency;
+
+    @Value("${quickflux.payment.consumer.publish-timeout-ms:30000}")
+    private long publishTimeoutMs;
+
+    @KafkaListener(id = "order-created-single", topics = "order.created", groupId = "payment-service",
+            autoStartup = "#{'${quickflux.payment.consumer.mode:batch}' == 'single'}")
     public void handleOrderCreated(OrderCreatedV1 event) {
         // Check idempotency
         if (idempotencyService.isAlreadyProcessed(event.eventId())) {
@@ -40,20 +60,11 @@ public class PaymentEventConsumer {
             log.info("Payment captured successfully for order {}: {}", orderId, result);
 
             // Publish PaymentCaptured event
-            PaymentCapturedV1 capturedEvent = new PaymentCapturedV1(
-                    UUID.randomUUID(),
-                    "PaymentCaptured",
-                    "v1",
-                    event.correlationId(),
-                    Instant.now(),
-                    "payment-service",
-                    orderId,
-                    event.amount(),
-                    event.userId()
-            );
-
-            eventPublisher.publish("payment.captured", orderId.toString(), capturedEvent);
+            eventPublisher.publish("payment.captured", orderId.toString(), capturedEvent(event));
 
+        } catch (PaymentOutcomeUnknownException e) {
+            // Neither captured nor failed yet: let Kafka redeliver and retry with the same key
+            throw e;
         } catch (Exception e) {
             log.error("Payment capture failed for order {}: {}", orderId, e.getMessage());
 
@@ -61,23 +72,130 @@ public class PaymentEventConsumer {
             paymentService.markPaymentAsFailed(preauthId);
 
             // Publish compensation event
-            PaymentFailedV1 failedEvent = new PaymentFailedV1(
-                    UUID.randomUUID(),
-                    "PaymentFailed",
-                    "v1",
-                    event.correlationId(),
-                    Instant.now(),
-                    "payment-service",
-                    orderId,
-                    "CAPTURE_FAILED: " + e.getMessage(),
-                    event.reservationId(),
-                    event.userId()
-            );
-
-            eventPublisher.publish("payment.failed", orderId.toString(), failedEvent);
+            eventPublisher.publish("payment.failed", orderId.toString(), failedEvent(event, e.getMessage()));
         }
 
         // Mark as processed
         idempotencyService.markAsProcessed(event.eventId(), event.eventType());
     }
-}
\ No newline at end of file
+
+    /**
+     * Handles a whole poll at once: one idempotency lookup, captures running concurrently,
+     * and the result events published together. The listener only returns (and the offsets
+     * are only committed) once every result event is acknowledged and the batch is marked
+     * processed; any failure before that, including a capture whose outcome is unknown,
+     * redelivers the batch, which the idempotency check and the already-captured guard in
+     * {@link PaymentService} absorb.
+     */
+    @KafkaListener(id = "order-created-batch", topics = "order.created", groupId = "payment-service",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{'${quickflux.payment.consumer.mode:batch}' == 'batch'}")
+    public void handleOrderCreatedBatch(List<OrderCreatedV1> records) {
+        // Null records failed deserialization; duplicates within the poll are captured once
+        Map<UUID, OrderCreatedV1> events = new LinkedHashMap<>();
+        records.stream()
+                .filter(Objects::nonNull)
+                .forEach(event -> events.putIfAbsent(event.eventId(), event));
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> processed = idempotencyService.findProcessed(events.keySet());
+        events.keySet().removeAll(processed);
+        if (!processed.isEmpty()) {
+            log.info("Skipping {} already processed event(s)", processed.size());
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        log.info("Received {} OrderCreated event(s)", events.size());
+
+        Semaphore permits = new Semaphore(captureConcurrency);
+        List<CompletableFuture<Publication>> captures = events.values().stream()
+                .map(event -> capture(event, permits))
+                .toList();
+
+        // Fail the poll only once every capture has finished, or the redelivery would start a second
+        // capture of payments whose first one is still in flight
+        CompletableFuture.allOf(captures.toArray(CompletableFuture[]::new))
+                .handle((ignored, ex) -> null)
+                .join();
+        List<Publication> publications = captures.stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        try {
+            eventPublisher.publishAll(publications).get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing payment results", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish payment results", e);
+        }
+
+        Map<UUID, String> eventTypes = new LinkedHashMap<>();
+        events.values().forEach(event -> eventTypes.put(event.eventId(), event.eventType()));
+        idempotencyService.markAllAsProcessed(eventTypes);
+    }
+
+    private CompletableFuture<Publication> capture(OrderCreatedV1 event, Semaphore permits) {
+        permits.acquireUninterruptibly();
+
+        String key = event.orderId().toString();
+        CompletableFuture<CaptureResult> capture;
+        try {
+            capture = paymentService.capturePaymentAsync(event.paymentPreAuthId(), event.amount());
+        } catch (RuntimeException e) {
+            capture = CompletableFuture.failedFuture(e);
+        }
+
+        // Runs on a paymentDbExecutor thread or this one, so the blocking markPaymentAsFailed is fine here
+        return capture
+                .handle((result, ex) -> {
+                    if (ex == null) {
+                        log.info("Payment captured successfully for order {}: {}", event.orderId(), result);
+                        return new Publication("payment.captured", key, capturedEvent(event));
+                    }
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof PaymentOutcomeUnknownException unknown) {
+                        // Fails the poll, so it is redelivered and the capture retried with the same key
+                        throw unknown;
+                    }
+                    log.error("Payment capture failed for order {}: {}", event.orderId(), cause.getMessage());
+                    // As in handleOrderCreated: beginCapture failures never touched the row
+                    paymentService.markPaymentAsFailed(event.paymentPreAuthId());
+                    return new Publication("payment.failed", key, failedEvent(event, cause.getMessage()));
+                })
+                .whenComplete((publication, ex) -> permits.release());
+    }
+
+    private PaymentCapturedV1 capturedEvent(OrderCreatedV1 event) {
+        return new PaymentCapturedV1(
+                UUID.randomUUID(),
+                "PaymentCaptured",
+                "v1",
+                event.correlationId(),
+                Instant.now(),
+                "payment-service",
+                event.orderId(),
+                event.amount(),
+                event.userId()
+        );
+    }
+
+    private PaymentFailedV1 failedEvent(OrderCreatedV1 event, String reason) {
+        return new PaymentFailedV1(
+                UUID.randomUUID(),
+                "PaymentFailed",
+                "v1",
+                event.correlationId(),
+                Instant.now(),
+                "payment-service",
+                event.orderId(),
+                "CAPTURE_FAILED: " + reason,
+                event.reservationId(),
+                event.userId()
+        );
+    }
+}
@@ -0,0 +1,54 @@
+package com.quickflux.paymentservice.gateway;
+
+/**
+ * AIMD concurrency limit: every good call while the limit is actually in use adds 1/limit
+ * (about +1 per limit's worth of calls), every failed or slow call multiplies it by
+ * backoffRatio. Calls over the current limit are refused rather than queued.
+ */
+final class AdaptiveLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+
+    AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    // Gives back a permit without a sample, for calls that never reached the gateway
+    synchronized void release() {
+        inFlight--;
+    }
+
+    synchronized void onSample(boolean dropped) {
+        int used = inFlight--;
+        if (dropped) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (used * 2 >= limit) {
+            // Only grow while at least half the limit is in use, so a quiet period cannot inflate it
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,19 @@
+package com.quickflux.paymentservice.gateway;
+
+import com.quickflux.paymentservice.gateway.PaymentGateway.CaptureResult;
+import com.quickflux.paymentservice.gateway.PaymentGateway.PreAuthResult;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of PaymentGateway: calls return at once and the futures complete when
+ * the gateway answers, so an in-flight payment does not hold a thread. Failures complete the
+ * future exceptionally with PaymentGatewayException.
+ */
+public interface AsyncPaymentGateway {
+
+    CompletableFuture<PreAuthResult> preAuthorizeAsync(UUID orderId, BigDecimal amount, String idempotencyKey);
+    CompletableFuture<CaptureResult> captureAsync(UUID preauthId, BigDecimal amount, String idempotencyKey);
+    CompletableFuture<Void> voidPreAuthAsync(UUID preauthId, String idempotencyKey);
+}
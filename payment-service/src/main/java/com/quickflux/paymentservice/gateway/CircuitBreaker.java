@@ -0,0 +1,120 @@
+package com.quickflux.paymentservice.gateway;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker. Opens when, over the last windowSize calls (and at least
+ * minimumCalls), the failure rate or the slow-call rate reaches its threshold. After
+ * openDuration it lets halfOpenCalls trial calls through: all of them succeeding fast closes
+ * it again, any bad one reopens it.
+ */
+final class CircuitBreaker {
+
+    // Ordered by severity, the ordinal is exported as a gauge
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final BiConsumer<State, State> onTransition;
+
+    private final boolean[] failedWindow;
+    private final boolean[] slowWindow;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSucceeded;
+
+    CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, int slowCallRateThreshold,
+                   Duration openDuration, int halfOpenCalls, BiConsumer<State, State> onTransition) {
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.onTransition = onTransition;
+        this.failedWindow = new boolean[windowSize];
+        this.slowWindow = new boolean[windowSize];
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    synchronized void record(boolean failed, boolean slow) {
+        switch (state) {
+            case CLOSED -> {
+                if (recorded == failedWindow.length) {
+                    failures -= failedWindow[next] ? 1 : 0;
+                    slowCalls -= slowWindow[next] ? 1 : 0;
+                } else {
+                    recorded++;
+                }
+                failedWindow[next] = failed;
+                slowWindow[next] = slow;
+                failures += failed ? 1 : 0;
+                slowCalls += slow ? 1 : 0;
+                next = (next + 1) % failedWindow.length;
+
+                if (recorded >= minimumCalls
+                        && (failures * 100 >= failureRateThreshold * recorded
+                        || slowCalls * 100 >= slowCallRateThreshold * recorded)) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> {
+                if (failed || slow) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSucceeded == halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case OPEN -> {
+                // Calls admitted before the breaker tripped
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void transitionTo(State to) {
+        State from = state;
+        state = to;
+        switch (to) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSucceeded = 0;
+            }
+            case CLOSED -> {
+                recorded = 0;
+                next = 0;
+                failures = 0;
+                slowCalls = 0;
+            }
+        }
+        onTransition.accept(from, to);
+    }
+}
@@ -1,21 +1,45 @@
 package com.quickflux.paymentservice.gateway;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
-public class FakeStripeGateway implements PaymentGateway {
+public class FakeStripeGateway implements PaymentGateway, AsyncPaymentGateway {
 
     private final Map<String, String> idempotencyStore = new ConcurrentHashMap<>();
     private final Map<UUID, PreAuthResult> preauthStore = new ConcurrentHashMap<>();
 
+    // Simulated network latency is a timer, not a sleeping thread
+    private final ScheduledExecutorService latencyTimer =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("fake-stripe-"));
+
+    // Added to every simulated call, to play a degraded provider
+    private final int extraLatencyMs;
+
+    public FakeStripeGateway(@Value("${quickflux.payment.fake-gateway.extra-latency-ms:0}") int extraLatencyMs) {
+        this.extraLatencyMs = extraLatencyMs;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        latencyTimer.shutdownNow();
+    }
+
     @Override
-    public PreAuthResult preAuthorize(UUID orderId, BigDecimal amount, String idempotencyKey) {
+    public CompletableFuture<PreAuthResult> preAuthorizeAsync(UUID orderId, BigDecimal amount, String idempotencyKey) {
         log.info("FakeStripe: Pre-authorizing ${} for order {}", amount, orderId);
 
         // Check idempotency
@@ -23,68 +47,93 @@ public class FakeStripeGateway implements PaymentGateway {
         if (cached != null) {
             log.info("FakeStripe: Returning cached pre-auth for key {}", idempotencyKey);
             UUID cachedId = UUID.fromString(cached);
-            return preauthStore.get(cachedId);
+            return CompletableFuture.completedFuture(preauthStore.get(cachedId));
         }
 
         // Simulate network delay
-        simulateLatency(100, 300);
-
-        // Simulate 5% failure rate
-        if (Math.random() < 0.05) {
-            log.error("FakeStripe: Pre-auth FAILED for order {}", orderId);
-            throw new PaymentGatewayException("Simulated payment pre-auth failure");
-        }
-
-        UUID preauthId = UUID.randomUUID();
-        String gatewayRef = "ch_fake_" + UUID.randomUUID().toString().substring(0, 8);
-
-        PreAuthResult result = new PreAuthResult(preauthId, gatewayRef, "PRE_AUTHORIZED");
-        preauthStore.put(preauthId, result);
-        idempotencyStore.put(idempotencyKey, preauthId.toString());
-
-        log.info("FakeStripe: Pre-auth SUCCESS {} for order {}", preauthId, orderId);
-        return result;
+        return simulateLatency(100, 300).thenApply(ignored -> {
+            // Simulate 5% failure rate
+            if (Math.random() < 0.05) {
+                log.error("FakeStripe: Pre-auth FAILED for order {}", orderId);
+                throw new PaymentGatewayException("Simulated payment pre-auth failure");
+            }
+
+            UUID preauthId = UUID.randomUUID();
+            String gatewayRef = "ch_fake_" + UUID.randomUUID().toString().substring(0, 8);
+
+            PreAuthResult result = new PreAuthResult(preauthId, gatewayRef, "PRE_AUTHORIZED");
+            preauthStore.put(preauthId, result);
+            idempotencyStore.put(idempotencyKey, preauthId.toString());
+
+            log.info("FakeStripe: Pre-auth SUCCESS {} for order {}", preauthId, orderId);
+            return result;
+        });
     }
 
     @Override
-    public CaptureResult capture(UUID preauthId, BigDecimal amount, String idempotencyKey) {
+    public CompletableFuture<CaptureResult> captureAsync(UUID preauthId, BigDecimal amount, String idempotencyKey) {
         log.info("FakeStripe: Capturing ${} for pre-auth {}", amount, preauthId);
 
         String cached = idempotencyStore.get(idempotencyKey);
         if (cached != null) {
             log.info("FakeStripe: Returning cached capture for key {}", idempotencyKey);
-            return new CaptureResult(cached, "CAPTURED");
+            return CompletableFuture.completedFuture(new CaptureResult(cached, "CAPTURED"));
         }
 
-        simulateLatency(100, 300);
+        return simulateLatency(100, 300).thenApply(ignored -> {
+            // Simulate 3% capture failure
+            if (Math.random() < 0.03) {
+                log.error("FakeStripe: Capture FAILED for pre-auth {}", preauthId);
+                throw new PaymentGatewayException("Simulated capture failure");
+            }
 
-        // Simulate 3% capture failure
-        if (Math.random() < 0.03) {
-            log.error("FakeStripe: Capture FAILED for pre-auth {}", preauthId);
-            throw new PaymentGatewayException("Simulated capture failure");
-        }
+            String captureId = "cap_fake_" + UUID.randomUUID().toString().substring(0, 8);
+            idempotencyStore.put(idempotencyKey, captureId);
 
-        String captureId = "cap_fake_" + UUID.randomUUID().toString().substring(0, 8);
-        idempotencyStore.put(idempotencyKey, captureId);
+            log.info("FakeStripe: Capture SUCCESS {}", captureId);
+            return new CaptureResult(captureId, "CAPTURED");
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> voidPreAuthAsync(UUID preauthId, String idempotencyKey) {
+        log.info("FakeStripe: Voiding pre-auth {}", preauthId);
+        return simulateLatency(50, 150).thenRun(() -> {
+            preauthStore.remove(preauthId);
+            log.info("FakeStripe: Pre-auth {} voided", preauthId);
+        });
+    }
+
+    @Override
+    public PreAuthResult preAuthorize(UUID orderId, BigDecimal amount, String idempotencyKey) {
+        return await(preAuthorizeAsync(orderId, amount, idempotencyKey));
+    }
 
-        log.info("FakeStripe: Capture SUCCESS {}", captureId);
-        return new CaptureResult(captureId, "CAPTURED");
+    @Override
+    public CaptureResult capture(UUID preauthId, BigDecimal amount, String idempotencyKey) {
+        return await(captureAsync(preauthId, amount, idempotencyKey));
     }
 
     @Override
     public void voidPreAuth(UUID preauthId, String idempotencyKey) {
-        log.info("FakeStripe: Voiding pre-auth {}", preauthId);
-        simulateLatency(50, 150);
-        preauthStore.remove(preauthId);
-        log.info("FakeStripe: Pre-auth {} voided", preauthId);
+        await(voidPreAuthAsync(preauthId, idempotencyKey));
+    }
+
+    private CompletableFuture<Void> simulateLatency(int minMs, int maxMs) {
+        int delay = extraLatencyMs + minMs + (int)(Math.random() * (maxMs - minMs));
+        CompletableFuture<Void> elapsed = new CompletableFuture<>();
+        latencyTimer.schedule(() -> elapsed.complete(null), delay, TimeUnit.MILLISECONDS);
+        return elapsed;
     }
 
-    private void simulateLatency(int minMs, int maxMs) {
+    private static <T> T await(CompletableFuture<T> future) {
         try {
-            int delay = minMs + (int)(Math.random() * (maxMs - minMs));
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
-}
\ No newline at end of file
+}
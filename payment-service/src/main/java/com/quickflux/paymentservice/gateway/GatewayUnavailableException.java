@@ -0,0 +1,8 @@
+package com.quickflux.paymentservice.gateway;
+
+// Thrown when a call is shed without reaching the provider, so it skips the stack trace
+public class GatewayUnavailableException extends PaymentGatewayException {
+    public GatewayUnavailableException(String message) {
+        super(message, false);
+    }
+}
@@ -4,4 +4,8 @@ public class PaymentGatewayException extends RuntimeException {
     public PaymentGatewayException(String message) {
         super(message);
     }
+
+    protected PaymentGatewayException(String message, boolean writableStackTrace) {
+        super(message, null, true, writableStackTrace);
+    }
 }
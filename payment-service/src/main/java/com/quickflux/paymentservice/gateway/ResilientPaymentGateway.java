@@ -0,0 +1,181 @@
+package com.quickflux.paymentservice.gateway;
+
+import com.quickflux.paymentservice.gateway.CircuitBreaker.State;
+import com.quickflux.paymentservice.gateway.PaymentGateway.CaptureResult;
+import com.quickflux.paymentservice.gateway.PaymentGateway.PreAuthResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sheds pre-auth load when the provider degrades instead of piling up calls on it. A call is
+ * refused at once with GatewayUnavailableException when the bulkhead is full, the adaptive
+ * limit is reached, or the circuit breaker is open; admitted calls are bounded by callTimeout
+ * and their outcome (failed, slow) feeds both the breaker and the limit. Only timeouts and
+ * transport errors count as failures: a PaymentGatewayException is the provider answering (a
+ * decline), which says it is healthy.
+ *
+ * Captures and voids are never shed: they finish payments that are already authorized, and
+ * refusing one would fail the payment rather than just retry it. Captures are still bounded by
+ * callTimeout, so a capture the provider never answers ends as an unknown outcome (left pending
+ * and retried) instead of holding up the order.created poll waiting on it.
+ */
+@Slf4j
+public class ResilientPaymentGateway implements AsyncPaymentGateway {
+
+    public record Settings(
+            int maxConcurrentCalls,
+            int initialLimit,
+            int minLimit,
+            double backoffRatio,
+            Duration callTimeout,
+            Duration slowCallThreshold,
+            int windowSize,
+            int minimumCalls,
+            int failureRateThreshold,
+            int slowCallRateThreshold,
+            Duration openDuration,
+            int halfOpenCalls) {}
+
+    private final AsyncPaymentGateway delegate;
+    private final MeterRegistry meterRegistry;
+    private final long callTimeoutMs;
+    private final long slowCallNanos;
+
+    private final Semaphore bulkhead;
+    private final AdaptiveLimit limit;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Counter succeeded;
+    private final Counter declined;
+    private final Counter failed;
+    private final Counter slow;
+    private final Counter bulkheadFull;
+    private final Counter limitExceeded;
+    private final Counter circuitOpen;
+
+    public ResilientPaymentGateway(AsyncPaymentGateway delegate, Settings settings, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.callTimeoutMs = settings.callTimeout().toMillis();
+        this.slowCallNanos = settings.slowCallThreshold().toNanos();
+
+        this.bulkhead = new Semaphore(settings.maxConcurrentCalls());
+        this.limit = new AdaptiveLimit(settings.initialLimit(), settings.minLimit(),
+                settings.maxConcurrentCalls(), settings.backoffRatio());
+        this.circuitBreaker = new CircuitBreaker(settings.windowSize(), settings.minimumCalls(),
+                settings.failureRateThreshold(), settings.slowCallRateThreshold(),
+                settings.openDuration(), settings.halfOpenCalls(), this::onTransition);
+
+        succeeded = callCounter("success");
+        declined = callCounter("declined");
+        failed = callCounter("failure");
+        slow = callCounter("slow");
+        bulkheadFull = rejectionCounter("bulkhead_full");
+        limitExceeded = rejectionCounter("limit_exceeded");
+        circuitOpen = rejectionCounter("circuit_open");
+
+        Gauge.builder("payment.gateway.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.concurrency.limit", limit, AdaptiveLimit::getLimit)
+                .description("Current adaptive limit on concurrent pre-auth calls")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.inflight", limit, AdaptiveLimit::getInFlight)
+                .description("Pre-auth calls currently in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<PreAuthResult> preAuthorizeAsync(UUID orderId, BigDecimal amount, String idempotencyKey) {
+        return protect(() -> delegate.preAuthorizeAsync(orderId, amount, idempotencyKey));
+    }
+
+    @Override
+    public CompletableFuture<CaptureResult> captureAsync(UUID preauthId, BigDecimal amount, String idempotencyKey) {
+        return delegate.captureAsync(preauthId, amount, idempotencyKey)
+                .orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<Void> voidPreAuthAsync(UUID preauthId, String idempotencyKey) {
+        return delegate.voidPreAuthAsync(preauthId, idempotencyKey);
+    }
+
+    State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> CompletableFuture<T> protect(Supplier<CompletableFuture<T>> call) {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadFull.increment();
+            return CompletableFuture.failedFuture(new GatewayUnavailableException("Payment gateway bulkhead full"));
+        }
+        if (!limit.tryAcquire()) {
+            bulkhead.release();
+            limitExceeded.increment();
+            return CompletableFuture.failedFuture(new GatewayUnavailableException("Payment gateway concurrency limit reached"));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            limit.release();
+            bulkhead.release();
+            circuitOpen.increment();
+            return CompletableFuture.failedFuture(new GatewayUnavailableException("Payment gateway circuit open"));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        return future.orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((result, ex) -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    boolean isDeclined = cause instanceof PaymentGatewayException;
+                    boolean isFailure = ex != null && !isDeclined;
+                    boolean isSlow = System.nanoTime() - start >= slowCallNanos;
+
+                    circuitBreaker.record(isFailure, isSlow);
+                    limit.onSample(isFailure || isSlow);
+                    bulkhead.release();
+
+                    (isFailure ? failed : isSlow ? slow : isDeclined ? declined : succeeded).increment();
+                });
+    }
+
+    private void onTransition(State from, State to) {
+        log.warn("Payment gateway circuit {} -> {}", from, to);
+        Counter.builder("payment.gateway.circuit.transitions")
+                .description("Circuit breaker state transitions")
+                .tag("from", from.name().toLowerCase())
+                .tag("to", to.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Counter callCounter(String outcome) {
+        return Counter.builder("payment.gateway.calls")
+                .description("Pre-auth calls that reached the gateway, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter rejectionCounter(String reason) {
+        return Counter.builder("payment.gateway.rejected")
+                .description("Pre-auth calls shed without reaching the gateway")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -1,12 +1,90 @@
 package com.quickflux.paymentservice.repository;
 
 import com.quickflux.paymentservice.domain.Payment;
+import com.quickflux.paymentservice.domain.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, UUID> {
     Optional<Payment> findByPreauthId(UUID preauthId);
-}
\ No newline at end of file
+
+    Optional<Payment> findByPreauthIdempotencyKey(String preauthIdempotencyKey);
+
+    /*
+     * Intent transitions: a gateway call is bracketed by one of these before (write the *_PENDING
+     * intent) and one after (record the result), each its own short transaction. The WHERE clause
+     * is the guard, so the caller and the recovery scan cannot both record a result.
+     * Each returns the number of rows changed (0 or 1).
+     */
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.quickflux.paymentservice.domain.PaymentStatus.PREAUTH_PENDING, " +
+            "p.pendingSince = :now WHERE p.id = :id AND p.status = com.quickflux.paymentservice.domain.PaymentStatus.FAILED")
+    int retryPreAuth(@Param("id") UUID id, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.quickflux.paymentservice.domain.PaymentStatus.PRE_AUTHORIZED, " +
+            "p.preauthId = :preauthId, p.gatewayReferenceId = :gatewayReferenceId, p.preauthAt = :preauthAt, " +
+            "p.pendingSince = null " +
+            "WHERE p.id = :id AND p.status = com.quickflux.paymentservice.domain.PaymentStatus.PREAUTH_PENDING")
+    int recordPreAuth(@Param("id") UUID id,
+                      @Param("preauthId") UUID preauthId,
+                      @Param("gatewayReferenceId") String gatewayReferenceId,
+                      @Param("preauthAt") Instant preauthAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.quickflux.paymentservice.domain.PaymentStatus.CAPTURE_PENDING, " +
+            "p.captureIdempotencyKey = :idempotencyKey, p.pendingSince = :now " +
+            "WHERE p.id = :id AND p.status = com.quickflux.paymentservice.domain.PaymentStatus.PRE_AUTHORIZED")
+    int beginCapture(@Param("id") UUID id, @Param("idempotencyKey") String idempotencyKey, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.quickflux.paymentservice.domain.PaymentStatus.CAPTURED, " +
+            "p.captureId = :captureId, p.capturedAt = :capturedAt, p.pendingSince = null " +
+            "WHERE p.id = :id AND p.status = com.quickflux.paymentservice.domain.PaymentStatus.CAPTURE_PENDING")
+    int recordCapture(@Param("id") UUID id, @Param("captureId") String captureId, @Param("capturedAt") Instant capturedAt);
+
+    // Claims a void before the gateway call; pending_since is set so a stuck void is recovered
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.quickflux.paymentservice.domain.PaymentStatus.VOIDING, " +
+            "p.pendingSince = :now WHERE p.id = :id AND p.status = :from")
+    int beginVoid(@Param("id") UUID id, @Param("from") PaymentStatus from, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.quickflux.paymentservice.domain.PaymentStatus.VOIDED, " +
+            "p.preauthId = :preauthId, p.gatewayReferenceId = :gatewayReferenceId, p.pendingSince = null " +
+            "WHERE p.id = :id AND p.status = com.quickflux.paymentservice.domain.PaymentStatus.VOIDING")
+    int recordVoid(@Param("id") UUID id,
+                   @Param("preauthId") UUID preauthId,
+                   @Param("gatewayReferenceId") String gatewayReferenceId);
+
+    // Ends an intent without a gateway result to record (FAILED, or VOIDED by recovery)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.pendingSince = null WHERE p.id = :id AND p.status = :from")
+    int resolveIntent(@Param("id") UUID id, @Param("from") PaymentStatus from, @Param("to") PaymentStatus to);
+
+    /**
+     * Intents older than the cutoff, oldest first. Locks them with SKIP LOCKED so concurrent
+     * scans on other instances take different rows; call in a transaction.
+     */
+    @Query(value = "SELECT * FROM payments " +
+            "WHERE status IN ('PREAUTH_PENDING', 'CAPTURE_PENDING', 'VOIDING') AND pending_since < :cutoff " +
+            "ORDER BY pending_since LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Payment> lockStuckIntents(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
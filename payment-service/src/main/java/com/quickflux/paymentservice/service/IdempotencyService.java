@@ -7,6 +7,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -32,4 +35,23 @@ public class IdempotencyService {
         processedEventRepository.save(processed);
         log.debug("Marked event {} as processed", eventId);
     }
-}
\ No newline at end of file
+
+    @Transactional(readOnly = true)
+    public Set<UUID> findProcessed(Collection<UUID> eventIds) {
+        return processedEventRepository.findProcessedEventIds(eventIds);
+    }
+
+    // Event type by event id
+    @Transactional
+    public void markAllAsProcessed(Map<UUID, String> eventTypes) {
+        Instant now = Instant.now();
+        processedEventRepository.saveAll(eventTypes.entrySet().stream()
+                .map(entry -> ProcessedEvent.builder()
+                        .eventId(entry.getKey())
+                        .eventType(entry.getValue())
+                        .processedAt(now)
+                        .build())
+                .toList());
+        log.debug("Marked {} events as processed", eventTypes.size());
+    }
+}
@@ -0,0 +1,9 @@
+package com.quickflux.paymentservice.service;
+
+// The gateway call neither succeeded nor definitely failed (timeout, lost connection); the
+// intent stays pending until a retry with the same idempotency key or the recovery scan resolves it
+public class PaymentOutcomeUnknownException extends RuntimeException {
+    public PaymentOutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,163 @@
+package com.quickflux.paymentservice.service;
+
+import com.quickflux.paymentservice.domain.Payment;
+import com.quickflux.paymentservice.domain.PaymentStatus;
+import com.quickflux.paymentservice.gateway.AsyncPaymentGateway;
+import com.quickflux.paymentservice.gateway.GatewayUnavailableException;
+import com.quickflux.paymentservice.gateway.PaymentGateway.PreAuthResult;
+import com.quickflux.paymentservice.gateway.PaymentGatewayException;
+import com.quickflux.paymentservice.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Resolves payment intents left pending longer than stuck-after (the service died or the gateway
+ * call timed out between intent and record), by replaying the gateway call with the stored
+ * idempotency key:
+ *  - PREAUTH_PENDING: whoever asked was told the pre-auth failed long ago, so a pre-auth the
+ *    provider did make is voided again (VOIDED); a declined one becomes FAILED. The intent is
+ *    first claimed as VOIDING with a guarded update, so a concurrent retry of the same pre-auth
+ *    either records it first (and recovery leaves it alone) or finds it claimed and fails
+ *  - VOIDING: a void that never got its answer is sent again
+ *  - CAPTURE_PENDING: the capture is completed (CAPTURED) or becomes FAILED; the order.created
+ *    record is retried until it succeeds (see KafkaConfig), and the retry after this finds the
+ *    result and publishes it
+ *
+ * Rows are claimed with SKIP LOCKED in a short transaction that also renews pending_since, so
+ * scans on several instances split the work and a claimed row is not picked up again while its
+ * replay runs. Any other failure leaves the intent for the next scan.
+ *
+ * Metrics: payment.intents.recovered, tagged result.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentRecoveryService {
+
+    private final AsyncPaymentGateway paymentGateway;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("paymentDbExecutor")
+    private final ExecutorService dbExecutor;
+
+    @Value("${quickflux.payment.recovery.stuck-after-ms:60000}")
+    private long stuckAfterMs;
+
+    @Value("${quickflux.payment.recovery.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${quickflux.payment.recovery.interval-ms:30000}")
+    public void recover() {
+        try {
+            List<Payment> stuck = transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                List<Payment> batch = paymentRepository.lockStuckIntents(now.minus(Duration.ofMillis(stuckAfterMs)), batchSize);
+                batch.forEach(payment -> payment.setPendingSince(now));
+                return batch;
+            });
+            if (stuck.isEmpty()) {
+                return;
+            }
+
+            log.info("Resolving {} stuck payment intent(s)", stuck.size());
+            CompletableFuture.allOf(stuck.stream()
+                            .map(this::resolve)
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+        } catch (Exception e) {
+            log.error("Payment intent recovery failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Void> resolve(Payment payment) {
+        CompletableFuture<String> resolved = switch (payment.getStatus()) {
+            case PREAUTH_PENDING -> resolvePreAuth(payment);
+            case VOIDING -> resolveVoid(payment);
+            default -> resolveCapture(payment);
+        };
+
+        return resolved
+                .thenAccept(result -> {
+                    log.info("Payment {} intent resolved: {}", payment.getId(), result);
+                    Counter.builder("payment.intents.recovered")
+                            .description("Stuck payment intents resolved by the recovery scan")
+                            .tag("result", result)
+                            .register(meterRegistry)
+                            .increment();
+                })
+                .exceptionally(ex -> {
+                    log.warn("Payment {} intent still unresolved: {}", payment.getId(), unwrap(ex).getMessage());
+                    return null;
+                });
+    }
+
+    private CompletableFuture<String> resolvePreAuth(Payment payment) {
+        return CompletableFuture.supplyAsync(
+                        () -> paymentRepository.beginVoid(payment.getId(), PaymentStatus.PREAUTH_PENDING, Instant.now()), dbExecutor)
+                .thenCompose(claimed -> claimed == 1
+                        ? resolveVoid(payment)
+                        // A retry recorded or failed it since the scan locked it
+                        : CompletableFuture.completedFuture("already_resolved"));
+    }
+
+    private CompletableFuture<String> resolveVoid(Payment payment) {
+        CompletableFuture<PreAuthResult> preauth = payment.getPreauthId() != null
+                ? CompletableFuture.completedFuture(new PreAuthResult(
+                        payment.getPreauthId(), payment.getGatewayReferenceId(), "PRE_AUTHORIZED"))
+                // Never recorded: replay with the stored key to learn whether, and which, pre-auth was made
+                : paymentGateway.preAuthorizeAsync(payment.getOrderId(), payment.getAmount(), payment.getPreauthIdempotencyKey());
+
+        return preauth
+                .thenCompose(result -> paymentGateway.voidPreAuthAsync(result.preauthId(), "void-" + result.preauthId())
+                        .thenApplyAsync(ignored -> {
+                            paymentRepository.recordVoid(payment.getId(), result.preauthId(), result.gatewayReferenceId());
+                            return "preauth_voided";
+                        }, dbExecutor))
+                .exceptionallyAsync(ex -> {
+                    // Only a failed replay says anything about the pre-auth; a failed void is retried
+                    if (!preauth.isCompletedExceptionally()) {
+                        throw new CompletionException(unwrap(ex));
+                    }
+                    return failIfDeclined(payment, PaymentStatus.VOIDING, ex, "preauth_failed");
+                }, dbExecutor);
+    }
+
+    private CompletableFuture<String> resolveCapture(Payment payment) {
+        return paymentGateway.captureAsync(payment.getPreauthId(), payment.getAmount(), payment.getCaptureIdempotencyKey())
+                .thenApplyAsync(result -> {
+                    paymentRepository.recordCapture(payment.getId(), result.captureId(), Instant.now());
+                    return "captured";
+                }, dbExecutor)
+                .exceptionallyAsync(ex -> failIfDeclined(payment, PaymentStatus.CAPTURE_PENDING, ex, "capture_failed"), dbExecutor);
+    }
+
+    // A definite gateway failure resolves the intent; anything else is rethrown and retried next scan
+    private String failIfDeclined(Payment payment, PaymentStatus pending, Throwable ex, String result) {
+        Throwable cause = unwrap(ex);
+        // GatewayUnavailableException: shed before reaching the provider, so it proves nothing
+        if (cause instanceof PaymentGatewayException && !(cause instanceof GatewayUnavailableException)) {
+            paymentRepository.resolveIntent(payment.getId(), pending, PaymentStatus.FAILED);
+            return result;
+        }
+        throw new CompletionException(cause);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
@@ -2,110 +2,266 @@ package com.quickflux.paymentservice.service;
 
 import com.quickflux.paymentservice.domain.Payment;
 import com.quickflux.paymentservice.domain.PaymentStatus;
-import com.quickflux.paymentservice.gateway.PaymentGateway;
+import com.quickflux.paymentservice.gateway.AsyncPaymentGateway;
+import com.quickflux.paymentservice.gateway.PaymentGatewayException;
 import com.quickflux.paymentservice.gateway.PaymentGateway.CaptureResult;
 import com.quickflux.paymentservice.gateway.PaymentGateway.PreAuthResult;
 import com.quickflux.paymentservice.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
+/**
+ * Payment operations composed on the async gateway, as intent/record pairs: a short transaction
+ * writes a PREAUTH_PENDING or CAPTURE_PENDING intent, the gateway call runs outside any
+ * transaction without holding a thread, and a second short transaction records the result.
+ * Database steps run on paymentDbExecutor, so a connection is held for a few ms per step rather
+ * than for the whole provider call.
+ *
+ * A definite gateway failure resolves the intent to FAILED. Any other failure (timeout, lost
+ * connection) leaves it pending for a retry with the same idempotency key or for
+ * PaymentRecoveryService.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
 
-    private final PaymentGateway paymentGateway;
+    private final AsyncPaymentGateway paymentGateway;
     private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
-    public PreAuthResult preAuthorizePayment(UUID orderId, BigDecimal amount) {
+    @Qualifier("paymentDbExecutor")
+    private final ExecutorService dbExecutor;
+
+    public CompletableFuture<PreAuthResult> preAuthorizePaymentAsync(UUID orderId, BigDecimal amount) {
         String idempotencyKey = "preauth-" + orderId.toString();
 
         log.info("Pre-authorizing payment for order {}: ${}", orderId, amount);
 
-        try {
-            PreAuthResult result = paymentGateway.preAuthorize(orderId, amount, idempotencyKey);
+        return CompletableFuture.supplyAsync(() -> beginPreAuth(orderId, amount, idempotencyKey), dbExecutor)
+                .thenCompose(payment -> payment.getStatus() == PaymentStatus.PRE_AUTHORIZED
+                        // Retried request: the pre-auth is already recorded
+                        ? CompletableFuture.completedFuture(new PreAuthResult(
+                                payment.getPreauthId(), payment.getGatewayReferenceId(), "PRE_AUTHORIZED"))
+                        : paymentGateway.preAuthorizeAsync(orderId, amount, idempotencyKey)
+                            .handleAsync((result, ex) -> recordPreAuth(payment, result, ex), dbExecutor))
+                .exceptionally(ex -> {
+                    log.error("Pre-auth failed for order {}: {}", orderId, unwrap(ex).getMessage());
+                    throw new PaymentPreAuthFailedException("Payment pre-authorization failed", unwrap(ex));
+                });
+    }
+
+    public CompletableFuture<CaptureResult> capturePaymentAsync(UUID preauthId, BigDecimal amount) {
+        String idempotencyKey = "capture-" + preauthId.toString();
+
+        log.info("Capturing payment for pre-auth {}: ${}", preauthId, amount);
+
+        return CompletableFuture.supplyAsync(() -> beginCapture(preauthId, idempotencyKey), dbExecutor)
+                .thenCompose(payment -> payment.getStatus() == PaymentStatus.CAPTURED
+                        // Redelivered event: the capture already went through
+                        ? CompletableFuture.completedFuture(new CaptureResult(payment.getCaptureId(), "CAPTURED"))
+                        : paymentGateway.captureAsync(preauthId, amount, idempotencyKey)
+                            .handleAsync((result, ex) -> recordCapture(payment, result, ex), dbExecutor));
+    }
+
+    public CompletableFuture<Void> voidPreAuthAsync(UUID preauthId) {
+        log.info("Voiding pre-auth {}", preauthId);
+
+        String idempotencyKey = "void-" + preauthId.toString();
+
+        return CompletableFuture.supplyAsync(() -> beginVoid(preauthId), dbExecutor)
+                .thenCompose(payment -> payment.getStatus() == PaymentStatus.VOIDED
+                        ? CompletableFuture.<Void>completedFuture(null)
+                        : paymentGateway.voidPreAuthAsync(preauthId, idempotencyKey)
+                            .handleAsync((ignored, ex) -> recordVoid(payment, ex), dbExecutor));
+    }
+
+    // Blocking forms for callers that are not async themselves
+
+    public PreAuthResult preAuthorizePayment(UUID orderId, BigDecimal amount) {
+        return await(preAuthorizePaymentAsync(orderId, amount));
+    }
+
+    public CaptureResult capturePayment(UUID preauthId, BigDecimal amount) {
+        return await(capturePaymentAsync(preauthId, amount));
+    }
+
+    public void voidPreAuth(UUID preauthId) {
+        await(voidPreAuthAsync(preauthId));
+    }
+
+    /**
+     * Records a capture that failed for good. Only a payment still holding its pre-auth becomes
+     * FAILED: a declined capture already is, a voided or voiding one keeps its status, and a
+     * missing one has nothing to record.
+     */
+    public void markPaymentAsFailed(UUID preauthId) {
+        Payment payment = paymentRepository.findByPreauthId(preauthId).orElse(null);
+        if (payment == null) {
+            log.warn("No payment found for pre-auth {}, nothing to mark as FAILED", preauthId);
+            return;
+        }
+        if (paymentRepository.resolveIntent(payment.getId(), PaymentStatus.PRE_AUTHORIZED, PaymentStatus.FAILED) == 0) {
+            log.info("Payment {} is {}, not marking it FAILED", payment.getId(), payment.getStatus());
+            return;
+        }
+        log.info("Payment {} marked as FAILED", payment.getId());
+    }
+
+    private Payment beginPreAuth(UUID orderId, BigDecimal amount, String idempotencyKey) {
+        Instant now = Instant.now();
 
-            // Save payment record
-            Payment payment = Payment.builder()
+        Payment payment = paymentRepository.findByPreauthIdempotencyKey(idempotencyKey).orElse(null);
+        if (payment == null) {
+            Payment intent = Payment.builder()
                     .id(UUID.randomUUID())
                     .orderId(orderId)
                     .amount(amount)
-                    .status(PaymentStatus.PRE_AUTHORIZED)
-                    .preauthId(result.preauthId())
-                    .gatewayReferenceId(result.gatewayReferenceId())
-                    .preauthAt(Instant.now())
+                    .status(PaymentStatus.PREAUTH_PENDING)
+                    .preauthAt(now)
                     .preauthIdempotencyKey(idempotencyKey)
+                    .pendingSince(now)
                     .build();
+            return transactionTemplate.execute(status -> paymentRepository.save(intent));
+        }
 
-            paymentRepository.save(payment);
-            log.info("Pre-auth successful and saved: {}", result);
+        switch (payment.getStatus()) {
+            // Pending: retried while the first call is unresolved; the gateway dedupes on the key
+            case PRE_AUTHORIZED, PREAUTH_PENDING -> {
+                return payment;
+            }
+            case FAILED -> {
+                if (payment.getPreauthId() == null && paymentRepository.retryPreAuth(payment.getId(), now) == 1) {
+                    payment.setStatus(PaymentStatus.PREAUTH_PENDING);
+                    return payment;
+                }
+            }
+            default -> { }
+        }
+        throw new IllegalStateException("Order " + orderId + " already has a " + payment.getStatus() + " payment");
+    }
 
+    private PreAuthResult recordPreAuth(Payment payment, PreAuthResult result, Throwable ex) {
+        if (ex == null) {
+            if (paymentRepository.recordPreAuth(payment.getId(), result.preauthId(), result.gatewayReferenceId(), Instant.now()) == 0) {
+                // A concurrent retry with the same key recorded the same pre-auth; anything else is a conflict
+                Payment current = paymentRepository.findById(payment.getId()).orElseThrow();
+                if (current.getStatus() != PaymentStatus.PRE_AUTHORIZED || !result.preauthId().equals(current.getPreauthId())) {
+                    throw new IllegalStateException("Payment " + payment.getId() + " was resolved as "
+                            + current.getStatus() + " while its pre-auth was in flight");
+                }
+            }
+            log.info("Pre-auth successful and saved: {}", result);
             return result;
+        }
 
-        } catch (Exception e) {
-            log.error("Pre-auth failed for order {}: {}", orderId, e.getMessage());
-            throw new PaymentPreAuthFailedException("Payment pre-authorization failed", e);
+        Throwable failure = unwrap(ex);
+        if (failure instanceof PaymentGatewayException declined) {
+            // Declined, or shed before reaching the provider: nothing is held there
+            paymentRepository.resolveIntent(payment.getId(), PaymentStatus.PREAUTH_PENDING, PaymentStatus.FAILED);
+            throw declined;
         }
+        throw new PaymentOutcomeUnknownException("Pre-auth outcome unknown for order " + payment.getOrderId(), failure);
     }
 
-    @Transactional
-    public CaptureResult capturePayment(UUID preauthId, BigDecimal amount) {
-        String idempotencyKey = "capture-" + preauthId.toString();
+    private Payment beginCapture(UUID preauthId, String idempotencyKey) {
+        Payment payment = findPayment(preauthId);
 
-        log.info("Capturing payment for pre-auth {}: ${}", preauthId, amount);
-
-        Payment payment = paymentRepository.findByPreauthId(preauthId)
-                .orElseThrow(() -> new PaymentNotFoundException("Payment not found for preauth: " + preauthId));
-
-        try {
-            CaptureResult result = paymentGateway.capture(preauthId, amount, idempotencyKey);
+        if (payment.getStatus() == PaymentStatus.PRE_AUTHORIZED) {
+            if (paymentRepository.beginCapture(payment.getId(), idempotencyKey, Instant.now()) == 1) {
+                payment.setStatus(PaymentStatus.CAPTURE_PENDING);
+                return payment;
+            }
+            // Lost a race with a concurrent capture of the same payment
+            payment = findPayment(preauthId);
+        }
 
-            payment.markAsCaptured(result.captureId());
-            paymentRepository.save(payment);
+        if (payment.getStatus() == PaymentStatus.CAPTURED || payment.getStatus() == PaymentStatus.CAPTURE_PENDING) {
+            return payment;
+        }
+        throw new PaymentCaptureFailedException("Cannot capture a " + payment.getStatus() + " payment",
+                new IllegalStateException("Can only capture PRE_AUTHORIZED payments"));
+    }
 
+    private CaptureResult recordCapture(Payment payment, CaptureResult result, Throwable ex) {
+        if (ex == null) {
+            // 0 rows: a retry or the recovery scan recorded it first, with the same key and so the same capture
+            paymentRepository.recordCapture(payment.getId(), result.captureId(), Instant.now());
             log.info("Capture successful: {}", result);
             return result;
+        }
 
-        } catch (Exception e) {
-            log.error("Capture failed for pre-auth {}: {}", preauthId, e.getMessage());
-            payment.markAsFailed();
-            paymentRepository.save(payment);
-            throw new PaymentCaptureFailedException("Payment capture failed", e);
+        Throwable failure = unwrap(ex);
+        if (failure instanceof PaymentGatewayException) {
+            log.error("Capture failed for pre-auth {}: {}", payment.getPreauthId(), failure.getMessage());
+            paymentRepository.resolveIntent(payment.getId(), PaymentStatus.CAPTURE_PENDING, PaymentStatus.FAILED);
+            throw new PaymentCaptureFailedException("Payment capture failed", failure);
         }
+        log.warn("Capture outcome unknown for pre-auth {}: {}", payment.getPreauthId(), failure.getMessage());
+        throw new PaymentOutcomeUnknownException("Capture outcome unknown for pre-auth " + payment.getPreauthId(), failure);
     }
 
-    @Transactional
-    public void voidPreAuth(UUID preauthId) {
-        log.info("Voiding pre-auth {}", preauthId);
+    // Claims the void before the gateway call, so it cannot race a capture of the same payment
+    private Payment beginVoid(UUID preauthId) {
+        Payment payment = findPayment(preauthId);
 
-        Payment payment = paymentRepository.findByPreauthId(preauthId)
-                .orElseThrow(() -> new PaymentNotFoundException("Payment not found for preauth: " + preauthId));
+        if (payment.getStatus() == PaymentStatus.PRE_AUTHORIZED) {
+            if (paymentRepository.beginVoid(payment.getId(), PaymentStatus.PRE_AUTHORIZED, Instant.now()) == 1) {
+                payment.setStatus(PaymentStatus.VOIDING);
+                return payment;
+            }
+            payment = findPayment(preauthId);
+        }
 
-        String idempotencyKey = "void-" + preauthId.toString();
-        paymentGateway.voidPreAuth(preauthId, idempotencyKey);
+        // Already voided, or a retry of a void still unanswered: the gateway dedupes on the key
+        if (payment.getStatus() == PaymentStatus.VOIDED || payment.getStatus() == PaymentStatus.VOIDING) {
+            return payment;
+        }
+        throw new IllegalStateException("Cannot void a " + payment.getStatus() + " payment");
+    }
 
-        payment.setStatus(PaymentStatus.VOIDED);
-        paymentRepository.save(payment);
+    private Void recordVoid(Payment payment, Throwable ex) {
+        if (ex == null) {
+            paymentRepository.recordVoid(payment.getId(), payment.getPreauthId(), payment.getGatewayReferenceId());
+            log.info("Pre-auth {} voided", payment.getPreauthId());
+            return null;
+        }
 
-        log.info("Pre-auth {} voided", preauthId);
+        Throwable failure = unwrap(ex);
+        if (failure instanceof PaymentGatewayException refused) {
+            // The provider refused the void: the pre-auth still stands
+            paymentRepository.resolveIntent(payment.getId(), PaymentStatus.VOIDING, PaymentStatus.PRE_AUTHORIZED);
+            throw refused;
+        }
+        throw new PaymentOutcomeUnknownException("Void outcome unknown for pre-auth " + payment.getPreauthId(), failure);
     }
 
-    @Transactional
-    public void markPaymentAsFailed(UUID preauthId) {
-        log.info("Marking payment as FAILED for pre-auth {}", preauthId);
-
-        Payment payment = paymentRepository.findByPreauthId(preauthId)
+    private Payment findPayment(UUID preauthId) {
+        return paymentRepository.findByPreauthId(preauthId)
                 .orElseThrow(() -> new PaymentNotFoundException("Payment not found for preauth: " + preauthId));
+    }
 
-        payment.markAsFailed();
-        paymentRepository.save(payment);
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
 
-        log.info("Payment {} marked as FAILED", payment.getId());
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
-}
\ No newline at end of file
+}
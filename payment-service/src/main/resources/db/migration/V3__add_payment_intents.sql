@@ -0,0 +1,13 @@
+-- Gateway calls are bracketed by an intent row: *_PENDING is written before the call and
+-- resolved after it, or by the recovery scan when the service died in between.
+-- preauth_id is only known once the gateway has answered.
+ALTER TABLE payments ALTER COLUMN preauth_id DROP NOT NULL;
+ALTER TABLE payments ADD COLUMN pending_since TIMESTAMP;
+
+ALTER TABLE payments DROP CONSTRAINT chk_payment_status;
+ALTER TABLE payments ADD CONSTRAINT chk_payment_status
+    CHECK (status IN ('PREAUTH_PENDING', 'PRE_AUTHORIZED', 'CAPTURE_PENDING', 'CAPTURED', 'VOIDED', 'FAILED'));
+
+CREATE INDEX idx_payments_pending ON payments(pending_since)
+    WHERE status IN ('PREAUTH_PENDING', 'CAPTURE_PENDING');
+CREATE INDEX idx_payments_preauth_id ON payments(preauth_id);
@@ -0,0 +1,9 @@
+-- VOIDING: a void has been claimed (by the recovery scan or a void request) but not yet
+-- confirmed by the gateway. Like the *_PENDING intents it is picked up again if it gets stuck.
+ALTER TABLE payments DROP CONSTRAINT chk_payment_status;
+ALTER TABLE payments ADD CONSTRAINT chk_payment_status
+    CHECK (status IN ('PREAUTH_PENDING', 'PRE_AUTHORIZED', 'CAPTURE_PENDING', 'CAPTURED', 'VOIDING', 'VOIDED', 'FAILED'));
+
+DROP INDEX idx_payments_pending;
+CREATE INDEX idx_payments_pending ON payments(pending_since)
+    WHERE status IN ('PREAUTH_PENDING', 'CAPTURE_PENDING', 'VOIDING');
@@ -0,0 +1,121 @@
+package com.quickflux.paymentservice.gateway;
+
+import com.quickflux.paymentservice.gateway.CircuitBreaker.State;
+import com.quickflux.paymentservice.gateway.PaymentGateway.PreAuthResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientPaymentGatewayTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Every call takes at least 200ms
+    private final FakeStripeGateway slowProvider = new FakeStripeGateway(200);
+
+    @AfterEach
+    void shutdown() {
+        slowProvider.shutdown();
+    }
+
+    @Test
+    void slowProviderOpensCircuitAndShedsFast() {
+        ResilientPaymentGateway gateway = new ResilientPaymentGateway(slowProvider, settings(50, 50), meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            preAuthorize(gateway).handle((result, ex) -> null).join();
+        }
+        assertThat(gateway.getCircuitState()).isEqualTo(State.OPEN);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> preAuthorize(gateway).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(GatewayUnavailableException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(50));
+        assertThat(rejected("circuit_open")).isEqualTo(1);
+    }
+
+    @Test
+    void bulkheadShedsCallsBeyondMaxConcurrency() {
+        ResilientPaymentGateway gateway = new ResilientPaymentGateway(slowProvider, settings(2, 5000), meterRegistry);
+
+        CompletableFuture<PreAuthResult> first = preAuthorize(gateway);
+        CompletableFuture<PreAuthResult> second = preAuthorize(gateway);
+
+        assertThatThrownBy(() -> preAuthorize(gateway).join())
+                .hasCauseInstanceOf(GatewayUnavailableException.class);
+        assertThat(rejected("bulkhead_full")).isEqualTo(1);
+
+        // Permits come back once the in-flight calls finish
+        CompletableFuture.allOf(first, second).handle((result, ex) -> null).join();
+        preAuthorize(gateway).handle((result, ex) -> null).join();
+        assertThat(rejected("bulkhead_full")).isEqualTo(1);
+    }
+
+    @Test
+    void declinesDoNotTripCircuitOrShrinkLimit() {
+        ResilientPaymentGateway gateway = new ResilientPaymentGateway(new DecliningProvider(), settings(4, 5000), meterRegistry);
+
+        for (int i = 0; i < 20; i++) {
+            assertThatThrownBy(() -> preAuthorize(gateway).join())
+                    .hasCauseInstanceOf(PaymentGatewayException.class);
+        }
+
+        assertThat(gateway.getCircuitState()).isEqualTo(State.CLOSED);
+        assertThat(meterRegistry.get("payment.gateway.concurrency.limit").gauge().value()).isEqualTo(4);
+        assertThat(meterRegistry.get("payment.gateway.calls").tag("outcome", "declined").counter().count()).isEqualTo(20);
+    }
+
+    private static ResilientPaymentGateway.Settings settings(int maxConcurrentCalls, long slowCallThresholdMs) {
+        return new ResilientPaymentGateway.Settings(
+                maxConcurrentCalls,
+                maxConcurrentCalls,
+                1,
+                0.75,
+                Duration.ofSeconds(5),
+                Duration.ofMillis(slowCallThresholdMs),
+                10,
+                5,
+                50,
+                80,
+                Duration.ofMinutes(1),
+                2);
+    }
+
+    private static CompletableFuture<PreAuthResult> preAuthorize(ResilientPaymentGateway gateway) {
+        UUID orderId = UUID.randomUUID();
+        return gateway.preAuthorizeAsync(orderId, new BigDecimal("10.00"), "preauth-" + orderId);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("payment.gateway.rejected").tag("reason", reason).counter().count();
+    }
+
+    // Answers at once, always with a decline
+    private static class DecliningProvider implements AsyncPaymentGateway {
+
+        @Override
+        public CompletableFuture<PreAuthResult> preAuthorizeAsync(UUID orderId, BigDecimal amount, String idempotencyKey) {
+            return CompletableFuture.failedFuture(new PaymentGatewayException("Card declined"));
+        }
+
+        @Override
+        public CompletableFuture<PaymentGateway.CaptureResult> captureAsync(UUID preauthId, BigDecimal amount, String idempotencyKey) {
+            return CompletableFuture.failedFuture(new PaymentGatewayException("Card declined"));
+        }
+
+        @Override
+        public CompletableFuture<Void> voidPreAuthAsync(UUID preauthId, String idempotencyKey) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.quickflux.contracts.events;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public record OrderCreatedV1(
@@ -18,5 +19,8 @@ public record OrderCreatedV1(
         BigDecimal amount,
         UUID userId,
         UUID reservationId,
-        UUID paymentPreAuthId
+        UUID paymentPreAuthId,
+
+        // One entry per order line. productId is only set for single-line orders, quantity is the total units
+        List<OrderItemV1> items
 ) implements DomainEvent {}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.quickflux.contracts.events;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record OrderItemV1(
+        UUID productId,
+        int quantity,
+        BigDecimal unitPrice
+) {}
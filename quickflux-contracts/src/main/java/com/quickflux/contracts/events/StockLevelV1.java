@@ -0,0 +1,21 @@
+package com.quickflux.contracts.events;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Latest available stock of one product, published to the compacted stock.levels topic keyed
+ * by productId. Only the newest record per product matters; compare asOf, not arrival order.
+ */
+public record StockLevelV1(
+        UUID eventId,
+        String eventType,
+        String version,
+        UUID correlationId,
+        Instant timestamp,
+        String source,
+
+        UUID productId,
+        int available,
+        Instant asOf
+) implements DomainEvent {}
@@ -0,0 +1,45 @@
+package com.quickflux.contracts.stock;
+
+import com.quickflux.contracts.events.StockLevelV1;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local, eventually consistent copy of available stock built from the stock.levels topic.
+ * Feed every record to apply (and tombstones to remove); records older than what is already
+ * held are ignored, so redelivery and replays from the start of the topic are safe.
+ * Consumers should use a group id per instance so that each instance sees every product.
+ */
+public class StockLevelView {
+
+    private final Map<UUID, StockLevelV1> levels = new ConcurrentHashMap<>();
+
+    // Returns false if the record was older than the one held
+    public boolean apply(StockLevelV1 level) {
+        StockLevelV1 held = levels.merge(level.productId(), level,
+                (current, incoming) -> incoming.asOf().isBefore(current.asOf()) ? current : incoming);
+        return held == level;
+    }
+
+    // For tombstones (null value) on the compacted topic
+    public void remove(UUID productId) {
+        levels.remove(productId);
+    }
+
+    // Empty if no level has been seen for the product yet
+    public OptionalInt available(UUID productId) {
+        StockLevelV1 level = levels.get(productId);
+        return level == null ? OptionalInt.empty() : OptionalInt.of(level.available());
+    }
+
+    public boolean isSoldOut(UUID productId) {
+        StockLevelV1 level = levels.get(productId);
+        return level != null && level.available() <= 0;
+    }
+
+    public int size() {
+        return levels.size();
+    }
+}
@@ -1,6 +1,7 @@
 package com.quickflux.websocket.events;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickflux.contracts.events.OrderCancelledV1;
 import com.quickflux.contracts.events.OrderCreatedV1;
 import com.quickflux.contracts.events.PaymentCapturedV1;
 import com.quickflux.contracts.events.PaymentFailedV1;
@@ -75,6 +76,20 @@ public class OrderEventConsumer {
         sendToUser(event.userId(), message);
     }
 
+    @KafkaListener(topics = "order.cancelled", groupId = "websocket-gateway")
+    public void handleOrderCancelled(OrderCancelledV1 event) {
+        log.info("Received OrderCancelled event for order {}", event.orderId());
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "ORDER_FAILED");
+        message.put("orderId", event.orderId().toString());
+        message.put("status", "CANCELLED");
+        message.put("reason", event.reason());
+        message.put("timestamp", event.timestamp().toString());
+
+        sendToUser(event.userId(), message);
+    }
+
     private void sendToUser(java.util.UUID userId, Map<String, Object> message) {
         try {
             String json = objectMapper.writeValueAsString(message);